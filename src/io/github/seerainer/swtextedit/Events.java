@@ -30,9 +30,7 @@ import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 import static org.eclipse.swt.events.ShellListener.shellActivatedAdapter;
 import static org.eclipse.swt.events.ShellListener.shellClosedAdapter;
 
-import java.io.File;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.charset.Charset;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.ExtendedModifyListener;
@@ -42,22 +40,32 @@ import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.MouseListener;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.events.ShellListener;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 
 import io.github.seerainer.swtextedit.config.CharacterEncoding;
+import io.github.seerainer.swtextedit.config.FileEncoding;
 import io.github.seerainer.swtextedit.dialog.About;
+import io.github.seerainer.swtextedit.dialog.FindInFiles;
 import io.github.seerainer.swtextedit.dialog.FindReplace;
+import io.github.seerainer.swtextedit.dialog.GotoLine;
 import io.github.seerainer.swtextedit.dialog.SystemProperties;
-import io.github.seerainer.swtextedit.io.IO;
+import io.github.seerainer.swtextedit.io.BackgroundOpen;
+import io.github.seerainer.swtextedit.io.BackgroundSave;
+import io.github.seerainer.swtextedit.syntax.Languages;
+import io.github.seerainer.swtextedit.util.ClipboardUtil;
 import io.github.seerainer.swtextedit.util.ItemUtil;
 import io.github.seerainer.swtextedit.util.LangUtil;
 import io.github.seerainer.swtextedit.util.PrintUtil;
+import io.github.seerainer.swtextedit.util.RefreshUtil;
 import io.github.seerainer.swtextedit.util.StatusBarUtil;
 import io.github.seerainer.swtextedit.util.StringUtil;
 import io.github.seerainer.swtextedit.util.TextUtil;
 import io.github.seerainer.swtextedit.util.UndoUtil;
 import io.github.seerainer.swtextedit.widgets.FileDialogWidget;
 import io.github.seerainer.swtextedit.widgets.FontDialogWidget;
+import io.github.seerainer.swtextedit.widgets.MessageBoxWidget;
 
 /**
  * Creating the UI events.
@@ -71,69 +79,58 @@ public final class Events {
 	/** Instance of the Find/Replace Dialog. */
 	private FindReplace findReplace;
 
-	/** Instances for the undo / redo function. */
-	private final List<UndoUtil> undoStack = new LinkedList<>();
+	/** Instance of the Find in Files Dialog. */
+	private FindInFiles findInFiles;
 
-	/**
-	 * Instances for the undo / redo function.
-	 */
-	private final List<UndoUtil> redoStack = new LinkedList<>();
+	/** Instance for the undo / redo function. */
+	private UndoUtil undoUtil;
+
+	/** Tracks if the clipboard contains text. */
+	private final ClipboardUtil clipboardUtil = new ClipboardUtil();
+
+	/** Coalesces the updates of the menu items and the status bar. */
+	private final RefreshUtil refreshUtil = new RefreshUtil(Display.getDefault(), this::update);
 
 	/** Listener for the undo / redo function. */
-	ExtendedModifyListener undoredo = e -> {
-		redoStack.clear();
-		final var stackSize = widgets.getConfigData().getUndoStackSize();
-		final var newText = widgets.getStyledText().getText().substring(e.start, e.start + e.length);
-		final var newTextValue = !StringUtil.isValueEmpty(newText);
-		if (e.replacedText.length() > 0) {
-			if (undoStack.size() == stackSize) {
-				undoStack.remove(undoStack.size() - 1);
-			}
-			if (newTextValue) {
-				undoStack.add(0, new UndoUtil(e.replacedText, e.replacedText.length() > 0,
-						widgets.getStyledText().getCaretOffset() - newText.length()));
-				if (undoStack.size() == stackSize) {
-					undoStack.remove(undoStack.size() - 1);
-				}
-				undoStack.add(0, new UndoUtil(newText, false, widgets.getStyledText().getCaretOffset()));
-			} else {
-				undoStack.add(0, new UndoUtil(e.replacedText, e.replacedText.length() > 0,
-						widgets.getStyledText().getCaretOffset()));
-			}
-		} else if (newTextValue) {
-			if (undoStack.size() == stackSize) {
-				undoStack.remove(undoStack.size() - 1);
-			}
-			undoStack.add(0, new UndoUtil(newText, false, widgets.getStyledText().getCaretOffset()));
-		}
-	};
+	ExtendedModifyListener undoredo = e -> undoUtil.add(e.start, e.replacedText,
+			e.length > 0 ? widgets.getStyledText().getTextRange(e.start, e.length) : ""); //$NON-NLS-1$
+
+	/** Updates the status bar if the words were counted in the background. */
+	Runnable counted = () -> refreshUtil.schedule();
 
 	/** Listener if a key is pressed. */
 	KeyListener keyPressed = keyPressedAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), e.keyCode, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		if (e.keyCode == SWT.INSERT) {
+			StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(),
+					widgets.getStatus4(), widgets.getStatus5(), e.keyCode, widgets.getStyledText(),
+					widgets.getConfigData().getFilename());
+		}
+		refreshUtil.schedule();
 	});
 
 	/** Listener if a key is released. */
 	KeyListener keyReleased = keyReleasedAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		if ((e.stateMask & SWT.MOD1) != 0 && (e.keyCode == 'c' || e.keyCode == 'x' || e.keyCode == SWT.INSERT)
+				|| (e.stateMask & SWT.SHIFT) != 0 && e.keyCode == SWT.DEL) {
+			clipboardUtil.update(widgets.getShell().getDisplay());
+		}
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the file menu to enable or disable. */
-	MenuListener enableSaveItem = menuShownAdapter(
-			e -> widgets.getFileMenu().getItem(2).setEnabled(widgets.getConfigData().isHasChanged()));
+	MenuListener enableSaveItem = menuShownAdapter(e -> {
+		widgets.getFileMenu().getItem(2).setEnabled(widgets.getConfigData().isHasChanged());
+		widgets.getFileMenu().getItem(4).setEnabled(BackgroundOpen.isRunning());
+		widgets.getFileMenu().getItem(5).setEnabled(!StringUtil.isValueEmpty(widgets.getConfigData().getFilename()));
+	});
 
 	/** Listener for the edit menu to enable or disable. */
 	MenuListener enableEditItems = menuShownAdapter(e -> {
+		clipboardUtil.update(widgets.getShell().getDisplay());
 		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+				widgets.getStyledText(), undoUtil, clipboardUtil);
 		ItemUtil.enableMenuItems(widgets.getEditPopup(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+				widgets.getStyledText(), undoUtil, clipboardUtil);
 	});
 
 	/** Listener for modifying the text. */
@@ -146,28 +143,23 @@ public final class Events {
 
 	/** Listener if a mouse key is pressed. */
 	MouseListener mousePressed = mouseDownAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener if a mouse key is released. */
 	MouseListener mouseReleased = mouseUpAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for a new textfile. */
 	SelectionListener newFile = widgetSelectedAdapter(e -> {
+		BackgroundSave.await(widgets.getShell());
 		if (widgets.getConfigData().isHasChanged()) {
 			final var state = FileDialogWidget.saveYesNoCancel(widgets.getShell(), widgets.getConfigData());
 
 			if (state == SWT.YES) {
-				if (FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.SAVE,
-						widgets.getStyledText())) {
+				if (FileDialogWidget.saveDialog(widgets.getShell(), widgets.getConfigData(),
+						widgets.getStyledText(), widgets.getStatus1(), null)) {
 					clearData(true);
 				}
 			} else if (state == SWT.NO) {
@@ -176,63 +168,72 @@ public final class Events {
 		} else {
 			clearData(true);
 		}
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for opening a file. */
 	SelectionListener open = widgetSelectedAdapter(e -> {
+		BackgroundSave.await(widgets.getShell());
 		if (widgets.getConfigData().isHasChanged()) {
 			final var state = FileDialogWidget.saveYesNoCancel(widgets.getShell(), widgets.getConfigData());
 
 			if (state == SWT.YES) {
-				if (FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.SAVE,
-						widgets.getStyledText())
-						&& FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.OPEN,
-								widgets.getStyledText())) {
+				if (FileDialogWidget.saveDialog(widgets.getShell(), widgets.getConfigData(),
+						widgets.getStyledText(), widgets.getStatus1(), null)
+						&& FileDialogWidget.openDialog(widgets.getShell(), widgets.getConfigData(),
+								widgets.getStyledText(), widgets.getStatus1(), this::refresh)) {
 					clearData(false);
 				}
-			} else if ((state == SWT.NO) && FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(),
-					SWT.OPEN, widgets.getStyledText())) {
+			} else if ((state == SWT.NO) && FileDialogWidget.openDialog(widgets.getShell(), widgets.getConfigData(),
+					widgets.getStyledText(), widgets.getStatus1(), this::refresh)) {
 				clearData(false);
 			}
-		} else if (FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.OPEN,
-				widgets.getStyledText())) {
+		} else if (FileDialogWidget.openDialog(widgets.getShell(), widgets.getConfigData(), widgets.getStyledText(),
+				widgets.getStatus1(), this::refresh)) {
 			clearData(false);
 		}
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for saving a file. */
 	SelectionListener save = widgetSelectedAdapter(e -> {
 		if (StringUtil.isValueEmpty(widgets.getConfigData().getFilename())) {
-			if (FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.SAVE,
-					widgets.getStyledText())) {
-				widgets.getConfigData().setHasChanged(false);
-			}
-		} else if (IO.save(new File(widgets.getConfigData().getFilename()), widgets.getStyledText().getText())) {
-			widgets.getConfigData().setHasChanged(false);
+			FileDialogWidget.saveDialog(widgets.getShell(), widgets.getConfigData(), widgets.getStyledText(),
+					widgets.getStatus1(), this::refresh);
+		} else {
+			FileDialogWidget.save(widgets.getShell(), widgets.getConfigData(), widgets.getStyledText(),
+					widgets.getStatus1(), widgets.getConfigData().getFilename(), this::refresh);
 		}
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
 	});
 
 	/** Listener for saving a file as. */
-	SelectionListener saveas = widgetSelectedAdapter(e -> {
-		if (FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.SAVE, widgets.getStyledText())) {
-			widgets.getConfigData().setHasChanged(false);
+	SelectionListener saveas = widgetSelectedAdapter(e -> FileDialogWidget.saveDialog(widgets.getShell(),
+			widgets.getConfigData(), widgets.getStyledText(), widgets.getStatus1(), this::refresh));
+
+	/** Listener for stopping the open of a file. */
+	SelectionListener stop = widgetSelectedAdapter(e -> BackgroundOpen.stop());
+
+	/** Listener for reloading the open file with another encoding. */
+	SelectionListener reload = widgetSelectedAdapter(e -> {
+		final var configData = widgets.getConfigData();
+		if (StringUtil.isValueEmpty(configData.getFilename())) {
+			return;
 		}
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		BackgroundSave.await(widgets.getShell());
+		if (configData.isHasChanged()) {
+			final var state = FileDialogWidget.saveYesNoCancel(widgets.getShell(), configData);
+			if (state == SWT.CANCEL || state == SWT.YES && !FileDialogWidget.saveDialog(widgets.getShell(),
+					configData, widgets.getStyledText(), widgets.getStatus1(), null)) {
+				return;
+			}
+		}
+		final var caret = widgets.getStyledText().getCaretOffset();
+		FileDialogWidget.open(widgets.getStyledText(), widgets.getShell(), configData, widgets.getStatus1(),
+				Charset.forName(((MenuItem) e.getSource()).getText()), () -> {
+					widgets.getStyledText().setCaretOffset(Math.min(caret, widgets.getStyledText().getCharCount()));
+					refresh();
+				});
+		clearData(false);
 	});
 
 	/** Listener for printing the textfile. */
@@ -245,107 +246,124 @@ public final class Events {
 	/** Listener for the undo event of the text widget. */
 	SelectionListener undo = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().removeExtendedModifyListener(undoredo);
-		UndoUtil.undo(undoStack, redoStack, widgets.getStyledText());
+		undoUtil.undo(widgets.getStyledText());
 		widgets.getStyledText().addExtendedModifyListener(undoredo);
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the redo event of the text widget. */
 	SelectionListener redo = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().removeExtendedModifyListener(undoredo);
-		UndoUtil.redo(redoStack, undoStack, widgets.getStyledText());
+		undoUtil.redo(widgets.getStyledText());
 		widgets.getStyledText().addExtendedModifyListener(undoredo);
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the cut event of the text widget. */
 	SelectionListener cut = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().cut();
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		clipboardUtil.update(widgets.getShell().getDisplay());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the copy event of the text widget. */
 	SelectionListener copy = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().copy();
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+		clipboardUtil.update(widgets.getShell().getDisplay());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the paste event of the text widget. */
 	SelectionListener paste = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().paste();
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the delete event of the text widget. */
 	SelectionListener del = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().insert(""); //$NON-NLS-1$
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the select all event of the text widget. */
 	SelectionListener selAll = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().selectAll();
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for the delete all event of the text widget. */
 	SelectionListener delAll = widgetSelectedAdapter(e -> {
 		widgets.getStyledText().setText(""); //$NON-NLS-1$
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for converting the text to uppercase. */
 	SelectionListener uppercase = widgetSelectedAdapter(e -> {
-		widgets.setStyledText(StringUtil.uppercase(widgets.getStyledText()));
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+		BackgroundOpen.await(widgets.getShell());
+		widgets.setStyledText(StringUtil.uppercase(widgets.getStyledText(), undoUtil));
+		refreshUtil.schedule();
 	});
 
 	/** Listener for converting the text to lowercase. */
 	SelectionListener lowercase = widgetSelectedAdapter(e -> {
-		widgets.setStyledText(StringUtil.lowercase(widgets.getStyledText()));
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+		BackgroundOpen.await(widgets.getShell());
+		widgets.setStyledText(StringUtil.lowercase(widgets.getStyledText(), undoUtil));
+		refreshUtil.schedule();
 	});
 
 	/** Listener for trimming leading and trailing whitespace. */
 	SelectionListener trim = widgetSelectedAdapter(e -> {
-		widgets.setStyledText(StringUtil.trim(widgets.getStyledText()));
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+		BackgroundOpen.await(widgets.getShell());
+		widgets.setStyledText(StringUtil.trim(widgets.getStyledText(), undoUtil));
+		refreshUtil.schedule();
 	});
 
 	/** Listener for find / replace dialog. */
 	SelectionListener find = widgetSelectedAdapter(e -> {
 		if (findReplace == null || findReplace.isWidgetDisposed()) {
 			findReplace = new FindReplace(widgets.getShell(), widgets.getConfigData(), widgets.getStyledText(),
-					widgets.getEditMenu());
+					widgets.getEditMenu(), widgets.getHighlighter(), widgets.getSearchIndex(), undoUtil);
 		}
 		findReplace.forceActive();
 	});
 
+	/** Listener for find in files dialog. */
+	SelectionListener findFiles = widgetSelectedAdapter(e -> {
+		if (findInFiles == null || findInFiles.isWidgetDisposed()) {
+			findInFiles = new FindInFiles(widgets.getShell(), widgets.getConfigData(), new FindInFiles.Opener() {
+
+				@Override
+				public void open(final String path, final int start, final int end) {
+					openFile(path, start, end);
+				}
+
+				@Override
+				public void reload(final String path) {
+					reloadFile(path);
+				}
+			});
+		}
+		findInFiles.forceActive();
+	});
+
+	/** Listener for the go to line dialog. */
+	SelectionListener gotoLine = widgetSelectedAdapter(e -> {
+		BackgroundOpen.await(widgets.getShell());
+		new GotoLine(widgets.getShell(), widgets.getConfigData(), widgets.getStyledText(), refreshUtil::schedule);
+	});
+
+	/** Listener for adding or removing the bookmark of the caret line. */
+	SelectionListener toggleBookmark = widgetSelectedAdapter(e -> widgets.getBookmarks()
+			.toggle(widgets.getStyledText().getLineAtOffset(widgets.getStyledText().getCaretOffset())));
+
+	/** Listener for moving the caret to the next bookmark. */
+	SelectionListener nextBookmark = widgetSelectedAdapter(e -> gotoBookmark(
+			widgets.getBookmarks().next(widgets.getStyledText().getLineAtOffset(widgets.getStyledText().getCaretOffset()))));
+
+	/** Listener for moving the caret to the previous bookmark. */
+	SelectionListener previousBookmark = widgetSelectedAdapter(e -> gotoBookmark(widgets.getBookmarks()
+			.previous(widgets.getStyledText().getLineAtOffset(widgets.getStyledText().getCaretOffset()))));
+
 	/** Listener for the wrap style of the styledtext widget. */
 	SelectionListener wrap = widgetSelectedAdapter(
 			e -> TextUtil.wrap(widgets.getConfigData(), widgets.getStyledText()));
@@ -370,12 +388,57 @@ public final class Events {
 	SelectionListener selectForeColor = widgetSelectedAdapter(
 			e -> FontDialogWidget.selectForeColor(widgets.getShell(), widgets.getStyledText(), widgets.getConfigData()));
 
-	/** Listener for the encoding of the text. */
+	/** Listener for the line delimiter menu to show the delimiter of the text. */
+	MenuListener showDelimiter = menuShownAdapter(e -> {
+		final var delimiter = widgets.getStyledText().getContent().getLineDelimiter();
+		for (final var item : ((Menu) e.widget).getItems()) {
+			item.setSelection(delimiter.equals(delimiterOf(item)));
+		}
+	});
+
+	/** Listener for converting the line delimiters of the text. */
+	SelectionListener delimiter = widgetSelectedAdapter(e -> {
+		final var item = (MenuItem) e.widget;
+		if (!item.getSelection()) {
+			return;
+		}
+		BackgroundOpen.await(widgets.getShell());
+		TextUtil.lineDelimiter(widgets.getStyledText(), delimiterOf(item), widgets.getStatus1(),
+				widgets.getConfigData().getLangRes().getString("status_converting"), undoUtil, //$NON-NLS-1$
+				this::refresh);
+	});
+
+	/** Listener for the encoding menu to show the encoding of the text. */
+	MenuListener showEncoding = menuShownAdapter(e -> {
+		final var charset = widgets.getConfigData().getEncoding().getCharset().name();
+		for (final var item : ((Menu) e.widget).getItems()) {
+			item.setSelection(charset.equals(item.getText()));
+		}
+	});
+
+	/**
+	 * Listener for converting the text to another encoding, which is written on
+	 * the next save.
+	 */
 	SelectionListener enc = widgetSelectedAdapter(e -> {
-		final var enc1 = ((MenuItem) e.getSource()).getText();
-		if (!CharacterEncoding.getEncoding().equals(enc1)) {
-			CharacterEncoding.setEncoding(enc1);
+		final var item = (MenuItem) e.getSource();
+		final var configData = widgets.getConfigData();
+		final var charset = Charset.forName(item.getText());
+		if (!item.getSelection() || charset.equals(configData.getEncoding().getCharset())) {
+			return;
 		}
+		BackgroundOpen.await(widgets.getShell());
+		TextUtil.unmappable(widgets.getStyledText(), charset, widgets.getStatus1(),
+				configData.getLangRes().getString("status_checking"), count -> { //$NON-NLS-1$
+					if (count > 0 && MessageBoxWidget.newMessageBox(widgets.getShell(),
+							SWT.ICON_WARNING | SWT.YES | SWT.NO, configData.getLangRes().getString("encoding_convert"), //$NON-NLS-1$
+							count + " " + configData.getLangRes().getString("encoding_unmappable")).open() != SWT.YES) { //$NON-NLS-1$ //$NON-NLS-2$
+						return;
+					}
+					configData.setEncoding(configData.getEncoding().withCharset(charset));
+					configData.setHasChanged(true);
+					refresh();
+				});
 	});
 
 	/** Listener for the language of the program. */
@@ -397,34 +460,33 @@ public final class Events {
 
 	/** Listener for the selection of the text widget. */
 	SelectionListener selectText = widgetSelectedAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener if the shell gets the focus. */
 	ShellListener shellFocus = shellActivatedAdapter(e -> {
-		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
-				widgets.getStyledText(), undoStack, redoStack);
+		clipboardUtil.update(widgets.getShell().getDisplay());
 		widgets.getFileMenu().getItem(2).setEnabled(widgets.getConfigData().isHasChanged());
-		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
-				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		refreshUtil.schedule();
 	});
 
 	/** Listener for closing the shell. */
 	ShellListener shellExit = shellClosedAdapter(e -> {
 		if (widgets.getConfigData().isHasChanged()) {
 			e.doit = switch (FileDialogWidget.saveYesNoCancel(widgets.getShell(), widgets.getConfigData())) {
-			case SWT.YES -> FileDialogWidget.fileDialog(widgets.getShell(), widgets.getConfigData(), SWT.SAVE,
-					widgets.getStyledText());
+			case SWT.YES -> FileDialogWidget.saveDialog(widgets.getShell(), widgets.getConfigData(),
+					widgets.getStyledText(), widgets.getStatus1(), null);
 			case SWT.NO -> true;
 			default -> false;
 			};
 		} else {
 			e.doit = true;
 		}
-
+		if (e.doit) {
+			BackgroundSave.await(widgets.getShell());
+			undoUtil.dispose();
+			clipboardUtil.dispose();
+		}
 	});
 
 	/**
@@ -434,6 +496,110 @@ public final class Events {
 	 */
 	Events(final Widgets widgets) {
 		this.widgets = widgets;
+		this.undoUtil = new UndoUtil(widgets.getConfigData().getUndoMemoryLimit(),
+				widgets.getConfigData().getUndoSpillSize(), widgets.getConfigData().getUndoDiskLimit());
+	}
+
+	/**
+	 * Moves the caret to the start of a bookmarked line.
+	 *
+	 * @param line The line of the bookmark or -1 without bookmarks.
+	 */
+	private void gotoBookmark(final int line) {
+		if (line < 0) {
+			return;
+		}
+		widgets.getStyledText().setSelection(widgets.getStyledText().getOffsetAtLine(line));
+		refreshUtil.schedule();
+	}
+
+	/**
+	 * Opens a file of the find in files dialog and selects an occurrence.
+	 *
+	 * @param path  The path of the file.
+	 * @param start The offset of the occurrence.
+	 * @param end   The offset after the occurrence.
+	 */
+	private void openFile(final String path, final int start, final int end) {
+		final var configData = widgets.getConfigData();
+		final Runnable select = () -> {
+			if (end <= widgets.getStyledText().getCharCount()) {
+				widgets.getStyledText().setSelection(start, end);
+			}
+			refresh();
+		};
+		BackgroundSave.await(widgets.getShell());
+		if (path.equals(configData.getFilename())) {
+			select.run();
+		} else {
+			if (configData.isHasChanged()) {
+				final var state = FileDialogWidget.saveYesNoCancel(widgets.getShell(), configData);
+				if (state == SWT.CANCEL || state == SWT.YES && !FileDialogWidget.saveDialog(widgets.getShell(),
+						configData, widgets.getStyledText(), widgets.getStatus1(), null)) {
+					return;
+				}
+			}
+			configData.setFilename(path);
+			FileDialogWidget.open(widgets.getStyledText(), widgets.getShell(), configData, widgets.getStatus1(),
+					select);
+			clearData(false);
+			refresh();
+		}
+	}
+
+	/**
+	 * Reloads the open file after it was replaced on the disk, unless the text
+	 * has changed.
+	 *
+	 * @param path The path of the file.
+	 */
+	private void reloadFile(final String path) {
+		final var configData = widgets.getConfigData();
+		BackgroundSave.await(widgets.getShell());
+		if (!path.equals(configData.getFilename()) || configData.isHasChanged()) {
+			return;
+		}
+		final var caret = widgets.getStyledText().getCaretOffset();
+		FileDialogWidget.open(widgets.getStyledText(), widgets.getShell(), configData, widgets.getStatus1(), () -> {
+			widgets.getStyledText().setCaretOffset(Math.min(caret, widgets.getStyledText().getCharCount()));
+			refresh();
+		});
+		clearData(false);
+	}
+
+	/**
+	 * Updates the menu items and the status bar after a save or an open.
+	 */
+	private void refresh() {
+		if (widgets.getShell().isDisposed()) {
+			return;
+		}
+		refreshUtil.now();
+		syntax();
+		StatusBarUtil.delimiter(widgets.getStatus6(), widgets.getStyledText().getContent().getLineDelimiter());
+		StatusBarUtil.encoding(widgets.getStatus7(), widgets.getConfigData().getEncoding());
+	}
+
+	/**
+	 * Chooses the syntax highlighting by the extension of the open file.
+	 */
+	private void syntax() {
+		widgets.getSyntax().setLexer(Languages.forFile(widgets.getConfigData().getFilename()));
+	}
+
+	/**
+	 * Updates the edit items and the status bar, called at most once per frame.
+	 */
+	private void update() {
+		if (widgets.getShell().isDisposed()) {
+			return;
+		}
+		ItemUtil.enableMenuItems(widgets.getEditMenu(), widgets.getToolBar(), widgets.getConfigData(),
+				widgets.getStyledText(), undoUtil, clipboardUtil);
+		StatusBarUtil.status(widgets.getStatus1(), widgets.getStatus2(), widgets.getStatus3(), widgets.getStatus4(),
+				widgets.getStatus5(), 0, widgets.getStyledText(), widgets.getConfigData().getFilename());
+		StatusBarUtil.statistics(widgets.getStatus8(), widgets.getStyledText(), widgets.getStatistics(),
+				widgets.getConfigData().getLangRes());
 	}
 
 	/**
@@ -445,9 +611,25 @@ public final class Events {
 		if (untitled) {
 			widgets.getStyledText().setText(""); //$NON-NLS-1$
 			widgets.getConfigData().setFilename(null);
+			widgets.getConfigData()
+					.setEncoding(new FileEncoding(Charset.forName(CharacterEncoding.getEncoding()), false));
 		}
 		widgets.getConfigData().setHasChanged(false);
-		undoStack.clear();
-		redoStack.clear();
+		undoUtil.clear();
+		syntax();
+		StatusBarUtil.delimiter(widgets.getStatus6(), widgets.getStyledText().getContent().getLineDelimiter());
+		StatusBarUtil.encoding(widgets.getStatus7(), widgets.getConfigData().getEncoding());
+	}
+
+	/**
+	 * @param item The menu item of a line delimiter.
+	 * @return Returns the line delimiter of the menu item.
+	 */
+	private static String delimiterOf(final MenuItem item) {
+		return switch ((String) item.getData("TEXTID")) { //$NON-NLS-1$
+		case "text_menu_view_delim_crlf" -> "\r\n"; //$NON-NLS-1$ //$NON-NLS-2$
+		case "text_menu_view_delim_cr" -> "\r"; //$NON-NLS-1$ //$NON-NLS-2$
+		default -> "\n"; //$NON-NLS-1$
+		};
 	}
 }
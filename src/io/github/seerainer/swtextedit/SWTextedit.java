@@ -33,7 +33,11 @@ import org.eclipse.swt.widgets.Widget;
 
 import io.github.seerainer.swtextedit.config.CharacterEncoding;
 import io.github.seerainer.swtextedit.config.ConfigData;
+import io.github.seerainer.swtextedit.io.BackgroundSave;
+import io.github.seerainer.swtextedit.syntax.Languages;
+import io.github.seerainer.swtextedit.text.TextBuffer;
 import io.github.seerainer.swtextedit.util.LangUtil;
+import io.github.seerainer.swtextedit.util.StatusBarUtil;
 import io.github.seerainer.swtextedit.widgets.FileDialogWidget;
 
 /**
@@ -107,8 +111,10 @@ public final class SWTextedit {
 			@Override
 			public void drop(final DropTargetEvent event) {
 				if (event.data != null) {
+					BackgroundSave.await(guiWidgets.getShell());
 					configData.setFilename(((String[]) event.data)[0]);
-					FileDialogWidget.open(guiWidgets.getStyledText(), guiWidgets.getShell(), configData);
+					FileDialogWidget.open(guiWidgets.getStyledText(), guiWidgets.getShell(), configData,
+							guiWidgets.getStatus1(), SWTextedit.this::status);
 				}
 			}
 		});
@@ -126,15 +132,39 @@ public final class SWTextedit {
 		LangUtil.setLang(widgets, configData);
 
 		shell.open();
+		status();
 
-		FileDialogWidget.open(guiWidgets.getStyledText(), guiWidgets.getShell(), configData);
+		FileDialogWidget.open(guiWidgets.getStyledText(), guiWidgets.getShell(), configData,
+				guiWidgets.getStatus1(), this::status);
 
 		final var display = shell.getDisplay();
 		while (!shell.isDisposed()) {
-			if (!display.readAndDispatch()) {
-				display.sleep();
+			try {
+				if (!display.readAndDispatch()) {
+					display.sleep();
+				}
+			} catch (final InternalError e) {
+				// a fault of a mapped file which was truncated by another program
+				e.printStackTrace();
+				TextBuffer.recover();
 			}
 		}
 		display.dispose();
 	}
+
+	/**
+	 * Output the information about the opened file in the status bar.
+	 */
+	private void status() {
+		if (!guiWidgets.getShell().isDisposed()) {
+			guiWidgets.getSyntax().setLexer(Languages.forFile(configData.getFilename()));
+			StatusBarUtil.status(guiWidgets.getStatus1(), guiWidgets.getStatus2(), guiWidgets.getStatus3(),
+					guiWidgets.getStatus4(), guiWidgets.getStatus5(), 0, guiWidgets.getStyledText(),
+					configData.getFilename());
+			StatusBarUtil.delimiter(guiWidgets.getStatus6(), guiWidgets.getStyledText().getContent().getLineDelimiter());
+			StatusBarUtil.encoding(guiWidgets.getStatus7(), configData.getEncoding());
+			StatusBarUtil.statistics(guiWidgets.getStatus8(), guiWidgets.getStyledText(), guiWidgets.getStatistics(),
+					configData.getLangRes());
+		}
+	}
 }
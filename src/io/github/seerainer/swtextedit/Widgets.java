@@ -40,6 +40,11 @@ import io.github.seerainer.swtextedit.config.CharacterEncoding;
 import io.github.seerainer.swtextedit.config.ConfigData;
 import io.github.seerainer.swtextedit.config.Icons;
 import io.github.seerainer.swtextedit.layout.Grid;
+import io.github.seerainer.swtextedit.search.MatchHighlighter;
+import io.github.seerainer.swtextedit.search.SearchIndex;
+import io.github.seerainer.swtextedit.syntax.SyntaxHighlighter;
+import io.github.seerainer.swtextedit.text.Bookmarks;
+import io.github.seerainer.swtextedit.text.TextStatistics;
 import io.github.seerainer.swtextedit.widgets.LabelWidget;
 import io.github.seerainer.swtextedit.widgets.MenuWidget;
 import io.github.seerainer.swtextedit.widgets.ShellWidget;
@@ -85,6 +90,21 @@ public final class Widgets {
 	 */
 	private Label status5;
 
+	/**
+	 * Instances of Label for the statusbar.
+	 */
+	private Label status6;
+
+	/**
+	 * Instances of Label for the statusbar.
+	 */
+	private Label status7;
+
+	/**
+	 * Instances of Label for the statusbar.
+	 */
+	private Label status8;
+
 	/** Instances of Menu. */
 	private Menu fileMenu;
 
@@ -107,6 +127,21 @@ public final class Widgets {
 	/** Instance of StyledText. */
 	private StyledText styledText;
 
+	/** Highlights the occurrences of the search in the text. */
+	private MatchHighlighter highlighter;
+
+	/** The bookmarked lines of the text. */
+	private Bookmarks bookmarks;
+
+	/** Index of the text for the search in large texts. */
+	private SearchIndex searchIndex;
+
+	/** Counts the words of the text. */
+	private TextStatistics statistics;
+
+	/** Highlights the syntax of the text. */
+	private SyntaxHighlighter syntax;
+
 	/** Instance of ToolBar. */
 	private ToolBar toolBar;
 
@@ -137,6 +172,25 @@ public final class Widgets {
 				configData.getForegroundColor(), configData.getSelectionBackground(),
 				configData.getSelectionForeground(), configData.isWrap());
 
+		highlighter = new MatchHighlighter(styledText);
+		styledText.addPaintListener(highlighter);
+		styledText.getContent().addTextChangeListener(highlighter);
+		searchIndex = new SearchIndex(styledText, configData.getSearchIndexSize());
+		styledText.getContent().addTextChangeListener(searchIndex);
+		statistics = new TextStatistics(styledText, events.counted);
+		styledText.getContent().addTextChangeListener(statistics);
+		bookmarks = new Bookmarks(styledText,
+				configData.isDarkMode() ? new Color(0x2A, 0x3A, 0x50) : new Color(0xDD, 0xE8, 0xF8));
+		styledText.getContent().addTextChangeListener(bookmarks);
+		styledText.addLineBackgroundListener(bookmarks);
+		syntax = new SyntaxHighlighter(styledText, configData.isDarkMode()
+				? new Color[] { null, new Color(0x6A, 0x99, 0x55), new Color(0x56, 0x9C, 0xD6),
+						new Color(0xB5, 0xCE, 0xA8), new Color(0xCE, 0x91, 0x78) }
+				: new Color[] { null, new Color(0x3F, 0x7F, 0x5F), new Color(0x7F, 0x00, 0x55),
+						new Color(0x12, 0x5A, 0xC8), new Color(0x2A, 0x00, 0xFF) });
+		styledText.getContent().addTextChangeListener(syntax);
+		styledText.addLineStyleListener(syntax);
+
 		styledText.addExtendedModifyListener(events.undoredo);
 		styledText.addKeyListener(events.keyPressed);
 		styledText.addKeyListener(events.keyReleased);
@@ -205,6 +259,17 @@ public final class Widgets {
 				MenuWidget.newMenuItem(fileMenu, "text_menu_file_save", Icons.save, SWT.CTRL + 'S', events.save)); //$NON-NLS-1$
 		widgets.add(MenuWidget.newMenuItem(fileMenu, "text_menu_file_saveas", null, SWT.CTRL + SWT.SHIFT + 'S', //$NON-NLS-1$
 				events.saveas));
+		widgets.add(MenuWidget.newMenuItem(fileMenu, "text_menu_file_stop", null, SWT.NONE, events.stop)); //$NON-NLS-1$
+
+		final var reloadMenu = MenuWidget.newMenu(shell, SWT.DROP_DOWN, null);
+		widgets.add(MenuWidget.newMenuName(fileMenu, SWT.CASCADE, "text_menu_file_reload", reloadMenu)); //$NON-NLS-1$
+
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_ascii", null, SWT.NONE, events.reload)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_iso", null, SWT.NONE, events.reload)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_utf8", null, SWT.NONE, events.reload)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_utf16be", null, SWT.NONE, events.reload)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_utf16le", null, SWT.NONE, events.reload)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(reloadMenu, "text_menu_view_enc_utf16", null, SWT.NONE, events.reload)); //$NON-NLS-1$
 
 		new MenuItem(fileMenu, SWT.SEPARATOR);
 
@@ -216,6 +281,13 @@ public final class Widgets {
 		widgets.add(MenuWidget.newMenuItem(fileMenu, "text_menu_file_exit", null, SWT.ESC, events.exit)); //$NON-NLS-1$
 	}
 
+	/**
+	 * @return Return bookmarks.
+	 */
+	Bookmarks getBookmarks() {
+		return bookmarks;
+	}
+
 	/**
 	 * @return Return configData.
 	 */
@@ -244,6 +316,20 @@ public final class Widgets {
 		return fileMenu;
 	}
 
+	/**
+	 * @return Return highlighter.
+	 */
+	MatchHighlighter getHighlighter() {
+		return highlighter;
+	}
+
+	/**
+	 * @return Return searchIndex.
+	 */
+	SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
 	/**
 	 * @return Return shell.
 	 */
@@ -286,6 +372,34 @@ public final class Widgets {
 		return status5;
 	}
 
+	/**
+	 * @return Return status6.
+	 */
+	Label getStatus6() {
+		return status6;
+	}
+
+	/**
+	 * @return Return status7.
+	 */
+	Label getStatus7() {
+		return status7;
+	}
+
+	/**
+	 * @return Return statistics.
+	 */
+	TextStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return Return status8.
+	 */
+	Label getStatus8() {
+		return status8;
+	}
+
 	/**
 	 * @return Return styledText.
 	 */
@@ -293,6 +407,13 @@ public final class Widgets {
 		return styledText;
 	}
 
+	/**
+	 * @return Return syntax.
+	 */
+	SyntaxHighlighter getSyntax() {
+		return syntax;
+	}
+
 	/**
 	 * @return Return toolBar.
 	 */
@@ -371,6 +492,17 @@ public final class Widgets {
 
 		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_find", Icons.search, SWT.CTRL + 'F', //$NON-NLS-1$
 				events.find));
+		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_files", null, SWT.CTRL + 'H', //$NON-NLS-1$
+				events.findFiles));
+
+		new MenuItem(searchMenu, SWT.SEPARATOR);
+
+		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_goto", null, SWT.CTRL + 'L', events.gotoLine)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_bookmark", null, SWT.CTRL + SWT.F2, //$NON-NLS-1$
+				events.toggleBookmark));
+		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_next", null, SWT.F2, events.nextBookmark)); //$NON-NLS-1$
+		widgets.add(MenuWidget.newMenuItem(searchMenu, "text_menu_search_previous", null, SWT.SHIFT + SWT.F2, //$NON-NLS-1$
+				events.previousBookmark));
 	}
 
 	/**
@@ -416,7 +548,7 @@ public final class Widgets {
 	 */
 	private void statusBar() {
 		final var statusBar = ToolbarWidget.newToolBar(shell, Grid.newGridData(),
-				Grid.newGridLayout(5, 0, 5, 0, 9, false));
+				Grid.newGridLayout(5, 0, 5, 0, 15, false));
 
 		if (configData.isDarkMode()) {
 			statusBar.setBackground(new Color(0x30, 0x30, 0x30));
@@ -447,6 +579,18 @@ public final class Widgets {
 
 		status5 = LabelWidget.newLabel(statusBar, gridData, null);
 
+		LabelWidget.vLine(statusBar);
+
+		status8 = LabelWidget.newLabel(statusBar, gridData, null);
+
+		LabelWidget.vLine(statusBar);
+
+		status6 = LabelWidget.newLabel(statusBar, Grid.newGridData(SWT.FILL, SWT.CENTER, false, true, 60, -1), null);
+
+		LabelWidget.vLine(statusBar);
+
+		status7 = LabelWidget.newLabel(statusBar, Grid.newGridData(SWT.FILL, SWT.CENTER, false, true, 100, -1), null);
+
 		if (!configData.isDarkMode()) {
 			return;
 		}
@@ -457,6 +601,9 @@ public final class Widgets {
 		status3.setForeground(color);
 		status4.setForeground(color);
 		status5.setForeground(color);
+		status6.setForeground(color);
+		status7.setForeground(color);
+		status8.setForeground(color);
 	}
 
 	/**
@@ -520,7 +667,7 @@ public final class Widgets {
 
 		new MenuItem(viewMenu, SWT.SEPARATOR);
 
-		final var encMenu = MenuWidget.newMenu(shell, SWT.DROP_DOWN, null);
+		final var encMenu = MenuWidget.newMenu(shell, SWT.DROP_DOWN, events.showEncoding);
 		widgets.add(MenuWidget.newMenuName(viewMenu, SWT.CASCADE, "text_menu_view_enc", encMenu)); //$NON-NLS-1$
 
 		final var encoding = CharacterEncoding.getEncoding();
@@ -537,6 +684,16 @@ public final class Widgets {
 		widgets.add(MenuWidget.newMenuItemStyle(encMenu, SWT.RADIO, "text_menu_view_enc_utf16", SWT.NONE, events.enc, //$NON-NLS-1$
 				CharacterEncoding.UTF16.equals(encoding)));
 
+		final var delimMenu = MenuWidget.newMenu(shell, SWT.DROP_DOWN, events.showDelimiter);
+		widgets.add(MenuWidget.newMenuName(viewMenu, SWT.CASCADE, "text_menu_view_delim", delimMenu)); //$NON-NLS-1$
+
+		widgets.add(MenuWidget.newMenuItemStyle(delimMenu, SWT.RADIO, "text_menu_view_delim_crlf", SWT.NONE, //$NON-NLS-1$
+				events.delimiter, false));
+		widgets.add(MenuWidget.newMenuItemStyle(delimMenu, SWT.RADIO, "text_menu_view_delim_lf", SWT.NONE, //$NON-NLS-1$
+				events.delimiter, false));
+		widgets.add(MenuWidget.newMenuItemStyle(delimMenu, SWT.RADIO, "text_menu_view_delim_cr", SWT.NONE, //$NON-NLS-1$
+				events.delimiter, false));
+
 		new MenuItem(viewMenu, SWT.SEPARATOR);
 
 		final var langMenu = MenuWidget.newMenu(shell, SWT.DROP_DOWN, null);
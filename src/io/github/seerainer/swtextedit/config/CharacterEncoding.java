@@ -42,17 +42,28 @@ public final class CharacterEncoding {
 
 	public static final String UTF16 = "UTF-16"; //$NON-NLS-1$
 
+	/**
+	 * The encoding of new files and of files which are ASCII only.<br>
+	 * The file.encoding property can't be changed in a running JVM, so the
+	 * encoding is kept here.
+	 */
+	private static String encoding = Charset.defaultCharset().name();
+
 	/**
 	 * @return Return encoding.
 	 */
 	public static String getEncoding() {
-		return Charset.defaultCharset().displayName();
+		return encoding;
 	}
 
 	/**
 	 * @param encoding Set encoding.
 	 */
 	public static void setEncoding(final String encoding) {
-		System.setProperty("file.encoding", encoding); //$NON-NLS-1$
+		CharacterEncoding.encoding = encoding;
+	}
+
+	/** Private empty constructor. */
+	private CharacterEncoding() {
 	}
 }
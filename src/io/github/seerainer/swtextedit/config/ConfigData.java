@@ -21,6 +21,7 @@
  */
 package io.github.seerainer.swtextedit.config;
 
+import java.nio.charset.Charset;
 import java.util.ResourceBundle;
 
 import org.eclipse.swt.SWT;
@@ -60,8 +61,17 @@ public final class ConfigData {
 	/** Values for the size of the Shell. */
 	private final int shellHeight = 600;
 
-	/** Value for the undo / redo action. */
-	private final int undoStackSize = 9999;
+	/** Maximum memory in bytes of the undo / redo entries. */
+	private final long undoMemoryLimit = 64L << 20;
+
+	/** Undo / redo entries with at least this number of characters go to a temporary file. */
+	private final int undoSpillSize = 1 << 20;
+
+	/** Maximum size in bytes of the undo / redo entries in the temporary file. */
+	private final long undoDiskLimit = 1L << 30;
+
+	/** Texts with at least this number of characters get a search index. */
+	private final int searchIndexSize = 1 << 22;
 
 	/** The background color of the text widget. */
 	private Color backgroundColor = new Color(null, 255, 255, 255);
@@ -78,6 +88,9 @@ public final class ConfigData {
 	/** The font of the text widget. */
 	private Font font = new Font(null, new FontData("Tahoma", 10, SWT.NORMAL)); //$NON-NLS-1$
 
+	/** The character encoding of the open file. */
+	private FileEncoding encoding = new FileEncoding(Charset.forName(CharacterEncoding.getEncoding()), false);
+
 	/** The path and name of the open file. */
 	private String filename = null;
 
@@ -98,6 +111,13 @@ public final class ConfigData {
 		return backgroundColor;
 	}
 
+	/**
+	 * @return Return encoding.
+	 */
+	public FileEncoding getEncoding() {
+		return encoding;
+	}
+
 	/**
 	 * @return Return filename.
 	 */
@@ -133,6 +153,13 @@ public final class ConfigData {
 		return language;
 	}
 
+	/**
+	 * @return Return searchIndexSize.
+	 */
+	public int getSearchIndexSize() {
+		return searchIndexSize;
+	}
+
 	/**
 	 * @return Return selectionBackground.
 	 */
@@ -162,10 +189,24 @@ public final class ConfigData {
 	}
 
 	/**
-	 * @return Return undoStackSize.
+	 * @return Return undoDiskLimit.
 	 */
-	public int getUndoStackSize() {
-		return undoStackSize;
+	public long getUndoDiskLimit() {
+		return undoDiskLimit;
+	}
+
+	/**
+	 * @return Return undoMemoryLimit.
+	 */
+	public long getUndoMemoryLimit() {
+		return undoMemoryLimit;
+	}
+
+	/**
+	 * @return Return undoSpillSize.
+	 */
+	public int getUndoSpillSize() {
+		return undoSpillSize;
 	}
 
 	/**
@@ -207,6 +248,13 @@ public final class ConfigData {
 		this.backgroundColor = backgroundColor;
 	}
 
+	/**
+	 * @param encoding Set encoding.
+	 */
+	public void setEncoding(final FileEncoding encoding) {
+		this.encoding = encoding;
+	}
+
 	/**
 	 * @param filename Set filename.
 	 */
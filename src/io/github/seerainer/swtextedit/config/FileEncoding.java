@@ -0,0 +1,89 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.config;
+
+import java.nio.charset.Charset;
+
+/**
+ * The character encoding of a file and if the file starts with a byte order
+ * mark.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class FileEncoding {
+
+	/** The character encoding of the file. */
+	private final Charset charset;
+
+	/** True if the file starts with a byte order mark. */
+	private final boolean bom;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.<br>
+	 * Only Unicode encodings with a fixed byte order get a byte order mark, the
+	 * decoders of UTF-16 and UTF-32 handle the mark themselves.
+	 *
+	 * @param charset The character encoding of the file.
+	 * @param bom     True if the file starts with a byte order mark.
+	 */
+	public FileEncoding(final Charset charset, final boolean bom) {
+		final var name = charset.name();
+		this.charset = charset;
+		this.bom = bom && name.startsWith("UTF-") && !"UTF-16".equals(name) && !"UTF-32".equals(name); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * @return Returns the bytes of the byte order mark, empty if the file has
+	 *         none.
+	 */
+	public byte[] getBom() {
+		return bom ? "\uFEFF".getBytes(charset) : new byte[0]; //$NON-NLS-1$
+	}
+
+	/**
+	 * @return Return charset.
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return Return bom.
+	 */
+	public boolean isBom() {
+		return bom;
+	}
+
+	/**
+	 * @param other The new character encoding.
+	 * @return Returns the new encoding, which keeps the byte order mark if it is
+	 *         a Unicode encoding.
+	 */
+	public FileEncoding withCharset(final Charset other) {
+		return new FileEncoding(other, bom);
+	}
+
+	@Override
+	public String toString() {
+		return bom ? charset.name() + " BOM" : charset.name(); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,609 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.dialog;
+
+import static org.eclipse.swt.events.SelectionListener.widgetDefaultSelectedAdapter;
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+import static org.eclipse.swt.events.ShellListener.shellClosedAdapter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.events.ShellListener;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+
+import io.github.seerainer.swtextedit.config.CharacterEncoding;
+import io.github.seerainer.swtextedit.config.ConfigData;
+import io.github.seerainer.swtextedit.config.Icons;
+import io.github.seerainer.swtextedit.layout.Grid;
+import io.github.seerainer.swtextedit.search.FileMatch;
+import io.github.seerainer.swtextedit.search.FileReplace;
+import io.github.seerainer.swtextedit.search.FileSearch;
+import io.github.seerainer.swtextedit.search.ReplaceJournal;
+import io.github.seerainer.swtextedit.search.Search;
+import io.github.seerainer.swtextedit.util.LangUtil;
+import io.github.seerainer.swtextedit.util.StringUtil;
+import io.github.seerainer.swtextedit.widgets.ButtonWidget;
+import io.github.seerainer.swtextedit.widgets.LabelWidget;
+import io.github.seerainer.swtextedit.widgets.MessageBoxWidget;
+import io.github.seerainer.swtextedit.widgets.ShellWidget;
+import io.github.seerainer.swtextedit.widgets.TextWidget;
+
+/**
+ * Find / Replace in Files dialog.<br>
+ * The occurrences are shown in a virtual table, so only the visible rows have
+ * table items. Replace All counts the occurrences per file in a dry run first
+ * and replaces them after a confirmation, the replace can be undone until the
+ * dialog is closed or the next replace starts.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class FindInFiles {
+
+	/**
+	 * Opens the file of an occurrence.
+	 */
+	public interface Opener {
+
+		/**
+		 * Opens a file and selects an occurrence.
+		 *
+		 * @param path  The path of the file.
+		 * @param start The offset of the occurrence.
+		 * @param end   The offset after the occurrence.
+		 */
+		void open(String path, int start, int end);
+
+		/**
+		 * Reloads a file if it is open and unchanged.
+		 *
+		 * @param path The path of the file.
+		 */
+		void reload(String path);
+	}
+
+	/** Number of files which are listed in the confirmation of a replace. */
+	private static final int MAX_CONFIRM_LINES = 20;
+
+	/** Instances of the Buttons. */
+	private Button sensitiveButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button regexButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button findButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button replaceallButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button undoButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button stopButton;
+
+	/** Instance of GuiConfigData for all configuration data. */
+	private ConfigData configData;
+
+	/** Searches the files in the background. */
+	private FileSearch fileSearch;
+
+	/** Replaces the occurrences in the files in the background. */
+	private FileReplace fileReplace;
+
+	/** The original files of the last replace or null. */
+	private ReplaceJournal journal;
+
+	/** The files of the last replace. */
+	private Set<String> replaced = Set.of();
+
+	/** Opens the file of an occurrence. */
+	private Opener opener;
+
+	/** The occurrences of the current search. */
+	private final List<FileMatch> results = new ArrayList<>();
+
+	/** The directory of the current search. */
+	private Path root;
+
+	/** HashSet for the language control. */
+	private final HashSet<Control> widgets = new HashSet<>();
+
+	/** Shows info of the dialog box. */
+	private Label info;
+
+	/** Instance of Shell. */
+	private Shell dialog;
+
+	/** The table of the occurrences. */
+	private Table table;
+
+	/** Instances of the text fields. */
+	private Text directoryText;
+
+	/**
+	 * Instances of the text fields.
+	 */
+	private Text searchText;
+
+	/**
+	 * Instances of the text fields.
+	 */
+	private Text replaceText;
+
+	/** Modify listener for the text fields. */
+	private final ModifyListener textModify = e -> enableButtons();
+
+	/** Listener for the browse button. */
+	private final SelectionListener browse = widgetSelectedAdapter(e -> {
+		final var directoryDialog = new DirectoryDialog(dialog);
+		directoryDialog.setFilterPath(directoryText.getText());
+		final var path = directoryDialog.open();
+		if (!StringUtil.isValueEmpty(path)) {
+			directoryText.setText(path);
+		}
+	});
+
+	/** Listener for the find button. */
+	private final SelectionListener find = widgetSelectedAdapter(e -> find());
+
+	/** Listener for the replace all button. */
+	private final SelectionListener replaceall = widgetSelectedAdapter(e -> replaceAll());
+
+	/** Listener for the undo button. */
+	private final SelectionListener undo = widgetSelectedAdapter(e -> undo());
+
+	/** Listener for the stop button. */
+	private final SelectionListener stop = widgetSelectedAdapter(e -> {
+		fileSearch.cancel();
+		fileReplace.cancel();
+		enableButtons();
+	});
+
+	/** Listener which fills the visible rows of the table. */
+	private final Listener setData = e -> {
+		final var item = (TableItem) e.item;
+		final var match = results.get(e.index);
+		item.setText(new String[] { root.relativize(Path.of(match.getPath())).toString(),
+				Integer.toString(match.getLine()), match.getText() });
+	};
+
+	/** Listener for opening the file of an occurrence. */
+	private final SelectionListener open = widgetDefaultSelectedAdapter(e -> {
+		final var index = table.getSelectionIndex();
+		if (index > -1 && index < results.size()) {
+			final var match = results.get(index);
+			opener.open(match.getPath(), match.getStart(), match.getEnd());
+		}
+	});
+
+	/** Listener for the close event. */
+	private final SelectionListener close = widgetSelectedAdapter(e -> dialog.close());
+
+	/** Listener for closing the dialog. */
+	private final ShellListener shellExit = shellClosedAdapter(e -> {
+		if (e.doit) {
+			fileSearch.cancel();
+			fileReplace.cancel();
+			if (journal != null && !fileReplace.isRunning()) {
+				journal.commit();
+			}
+		}
+	});
+
+	/**
+	 * Public constructor.
+	 *
+	 * @param parent     The parent of the dialog.
+	 * @param configData The configuration values of the GUI.
+	 * @param opener     Opens the file of an occurrence.
+	 */
+	public FindInFiles(final Shell parent, final ConfigData configData, final Opener opener) {
+		this.configData = configData;
+		this.opener = opener;
+		this.fileSearch = new FileSearch(parent.getDisplay());
+		this.fileReplace = new FileReplace(parent.getDisplay());
+
+		shell(parent);
+		search();
+		table();
+		buttons();
+
+		dialog.open();
+
+		LangUtil.setLang(widgets, configData);
+		enableButtons();
+	}
+
+	/**
+	 * Buttons for find, replace all, undo, stop and close.
+	 */
+	private void buttons() {
+		info = LabelWidget.newLabel(dialog, new GridData(SWT.FILL, SWT.CENTER, true, false), null);
+
+		findButton = ButtonWidget.newButton(dialog, SWT.PUSH, "find_find", Grid.newGridData(false, false), find); //$NON-NLS-1$
+		widgets.add(findButton);
+		dialog.setDefaultButton(findButton);
+
+		replaceallButton = ButtonWidget.newButton(dialog, SWT.PUSH, "find_replaceall", Grid.newGridData(false, false), //$NON-NLS-1$
+				replaceall);
+		widgets.add(replaceallButton);
+
+		undoButton = ButtonWidget.newButton(dialog, SWT.PUSH, "files_undo", Grid.newGridData(false, false), undo); //$NON-NLS-1$
+		widgets.add(undoButton);
+
+		stopButton = ButtonWidget.newButton(dialog, SWT.PUSH, "files_stop", Grid.newGridData(false, false), stop); //$NON-NLS-1$
+		widgets.add(stopButton);
+
+		widgets.add(
+				ButtonWidget.newButton(dialog, SWT.PUSH, "button_close", Grid.newGridData(false, false), close)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Enables the buttons.
+	 */
+	private void enableButtons() {
+		final var running = fileSearch.isRunning() || fileReplace.isRunning();
+		findButton.setEnabled(!running && searchText.getCharCount() > 0 && directoryText.getCharCount() > 0);
+		replaceallButton.setEnabled(!running && !results.isEmpty());
+		undoButton.setEnabled(!running && journal != null && !journal.isEmpty());
+		stopButton.setEnabled(running);
+	}
+
+	/**
+	 * Starts to search the files of the directory.
+	 */
+	private void find() {
+		final var lang = configData.getLangRes();
+		final var searchString = searchText.getText();
+		final var ignoreCase = !sensitiveButton.getSelection();
+		final var regex = regexButton.getSelection();
+		final var directory = new File(directoryText.getText()).getAbsoluteFile();
+		try {
+			Search.of(searchString, ignoreCase, regex);
+		} catch (final IllegalArgumentException e) {
+			info.setText(lang.getString("find_invalid")); //$NON-NLS-1$
+			return;
+		}
+		if (!directory.isDirectory()) {
+			info.setText(lang.getString("filedialog_error_found")); //$NON-NLS-1$
+			return;
+		}
+
+		root = directory.toPath();
+		results.clear();
+		table.clearAll();
+		table.setItemCount(0);
+		info.setText(""); //$NON-NLS-1$
+		fileSearch.start(root, () -> Search.background(searchString, ignoreCase, regex),
+				Charset.forName(CharacterEncoding.getEncoding()), new FileSearch.Listener() {
+
+					@Override
+					public void finished(final int files, final boolean limited) {
+						if (dialog.isDisposed()) {
+							return;
+						}
+						showCount(files);
+						if (limited) {
+							info.setText(lang.getString("files_limited")); //$NON-NLS-1$
+						}
+						enableButtons();
+					}
+
+					@Override
+					public void found(final List<FileMatch> matches, final int files) {
+						if (dialog.isDisposed()) {
+							return;
+						}
+						if (!matches.isEmpty()) {
+							results.addAll(matches);
+							table.setItemCount(results.size());
+						}
+						showCount(files);
+					}
+				});
+		enableButtons();
+	}
+
+	/**
+	 * Moves the window to the top of the drawing order.
+	 */
+	public void forceActive() {
+		dialog.forceActive();
+	}
+
+	/**
+	 * @return Returns if the dialog is closed.
+	 */
+	public boolean isWidgetDisposed() {
+		return dialog.isDisposed();
+	}
+
+	/**
+	 * The text fields for the directory, the search text and the replacement and
+	 * the options.
+	 */
+	private void search() {
+		final var gridData = new GridData(SWT.FILL, SWT.CENTER, false, false);
+
+		widgets.add(LabelWidget.newLabel(dialog, gridData, "files_directory")); //$NON-NLS-1$
+
+		directoryText = TextWidget.newText(dialog, SWT.SINGLE | SWT.BORDER, Grid.newGridData(4, 1), false, true);
+		final var filename = configData.getFilename();
+		final var parent = StringUtil.isValueEmpty(filename) ? null
+				: new File(filename).getAbsoluteFile().getParentFile();
+		directoryText.setText(parent != null ? parent.getPath() : System.getProperty("user.dir")); //$NON-NLS-1$
+		directoryText.addModifyListener(textModify);
+
+		widgets.add(ButtonWidget.newButton(dialog, SWT.PUSH, "files_browse", Grid.newGridData(false, false), browse)); //$NON-NLS-1$
+
+		widgets.add(LabelWidget.newLabel(dialog, gridData, "find_find_text")); //$NON-NLS-1$
+
+		searchText = TextWidget.newText(dialog, SWT.SINGLE | SWT.BORDER, Grid.newGridData(5, 1), true, true);
+		searchText.addModifyListener(textModify);
+		searchText.setFocus();
+
+		widgets.add(LabelWidget.newLabel(dialog, gridData, "find_replace_text")); //$NON-NLS-1$
+
+		replaceText = TextWidget.newText(dialog, SWT.SINGLE | SWT.BORDER, Grid.newGridData(5, 1), false, true);
+
+		LabelWidget.newLabel(dialog, gridData, null);
+
+		sensitiveButton = ButtonWidget.newButton(dialog, SWT.CHECK, "find_options_sensitive", Grid.newGridData(), //$NON-NLS-1$
+				null);
+		widgets.add(sensitiveButton);
+
+		regexButton = ButtonWidget.newButton(dialog, SWT.CHECK, "find_options_regex", Grid.newGridData(4, 1), null); //$NON-NLS-1$
+		widgets.add(regexButton);
+	}
+
+	/**
+	 * Counts the occurrences in the files of the last search in a dry run and
+	 * replaces them after a confirmation. A changed text in the editor is not
+	 * replaced on the disk.
+	 */
+	private void replaceAll() {
+		final var searchString = searchText.getText();
+		final var ignoreCase = !sensitiveButton.getSelection();
+		final var regex = regexButton.getSelection();
+		final var replaceString = replaceText.getText();
+		final var charset = Charset.forName(CharacterEncoding.getEncoding());
+		final Supplier<Search> searches = () -> Search.background(searchString, ignoreCase, regex);
+		final var changed = configData.isHasChanged() ? configData.getFilename() : null;
+		final var paths = new LinkedHashSet<String>();
+		for (final var match : results) {
+			if (!match.getPath().equals(changed)) {
+				paths.add(match.getPath());
+			}
+		}
+		final var files = new ArrayList<Path>();
+		for (final var path : paths) {
+			files.add(Path.of(path));
+		}
+		if (journal != null) {
+			journal.commit();
+			journal = null;
+		}
+
+		info.setText(""); //$NON-NLS-1$
+		fileReplace.start(files, searches, replaceString, charset, null, (counts, failed, cancelled) -> {
+			if (dialog.isDisposed() || cancelled) {
+				enableButtonsIfOpen();
+				return;
+			}
+			if (counts.isEmpty()) {
+				info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+				enableButtons();
+				return;
+			}
+			if (!confirm(counts)) {
+				enableButtons();
+				return;
+			}
+			try {
+				journal = new ReplaceJournal(root);
+			} catch (final IOException e) {
+				e.printStackTrace();
+				info.setText(configData.getLangRes().getString("files_failed")); //$NON-NLS-1$
+				enableButtons();
+				return;
+			}
+			final var targets = new ArrayList<Path>();
+			for (final var path : counts.keySet()) {
+				targets.add(Path.of(path));
+			}
+			fileReplace.start(targets, searches, replaceString, charset, journal, this::replaced);
+			enableButtons();
+		});
+		enableButtons();
+	}
+
+	/**
+	 * Shows the result of a replace and reloads a replaced file in the editor.
+	 *
+	 * @param counts    The number of replaced occurrences by path.
+	 * @param failed    The number of files which couldn't be processed.
+	 * @param cancelled True if the replace was cancelled.
+	 */
+	private void replaced(final Map<String, Integer> counts, final int failed, final boolean cancelled) {
+		if (dialog.isDisposed()) {
+			journal.commit();
+			return;
+		}
+		final var lang = configData.getLangRes();
+		var total = 0;
+		for (final int count : counts.values()) {
+			total += count;
+		}
+		var message = total + " " + lang.getString("find_replaced") + " " + counts.size() + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ lang.getString("files_files"); //$NON-NLS-1$
+		if (failed > 0) {
+			message += ", " + failed + " " + lang.getString("files_failed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		replaced = counts.keySet();
+		results.clear();
+		table.clearAll();
+		table.setItemCount(0);
+		info.setText(message);
+		for (final var path : replaced) {
+			opener.reload(path);
+		}
+		enableButtons();
+	}
+
+	/**
+	 * Asks if the occurrences of the dry run should be replaced.
+	 *
+	 * @param counts The number of occurrences by path.
+	 * @return Return true if the occurrences should be replaced.
+	 */
+	private boolean confirm(final Map<String, Integer> counts) {
+		final var lang = configData.getLangRes();
+		final var message = new StringBuilder();
+		var total = 0;
+		var lines = 0;
+		for (final var entry : counts.entrySet()) {
+			total += entry.getValue();
+			if (lines++ < MAX_CONFIRM_LINES) {
+				message.append(root.relativize(Path.of(entry.getKey()))).append(": ").append(entry.getValue()) //$NON-NLS-1$
+						.append('\n');
+			}
+		}
+		if (lines > MAX_CONFIRM_LINES) {
+			message.append("...\n"); //$NON-NLS-1$
+		}
+		message.append('\n').append(total).append(' ').append(lang.getString("find_matches")).append(", ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(counts.size()).append(' ').append(lang.getString("files_files")); //$NON-NLS-1$
+		return MessageBoxWidget.newMessageBox(dialog, SWT.ICON_QUESTION | SWT.YES | SWT.NO,
+				lang.getString("find_replaceall"), message.toString()).open() == SWT.YES; //$NON-NLS-1$
+	}
+
+	/**
+	 * Enables the buttons unless the dialog is closed.
+	 */
+	private void enableButtonsIfOpen() {
+		if (!dialog.isDisposed()) {
+			enableButtons();
+		}
+	}
+
+	/**
+	 * Restores the files of the last replace.
+	 */
+	private void undo() {
+		if (journal == null) {
+			return;
+		}
+		final var failed = journal.rollback();
+		journal = null;
+		final var lang = configData.getLangRes();
+		info.setText(failed > 0 ? failed + " " + lang.getString("files_failed") : lang.getString("files_undone")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (final var path : replaced) {
+			opener.reload(path);
+		}
+		replaced = Set.of();
+		enableButtons();
+	}
+
+	/**
+	 * Creates a new Shell for the find in files dialog.
+	 *
+	 * @param parent The parent of the dialog.
+	 */
+	private void shell(final Shell parent) {
+		dialog = ShellWidget.newShell(parent, SWT.DIALOG_TRIM | SWT.RESIZE, "files", Icons.search, 750, 550, //$NON-NLS-1$
+				Grid.newGridLayout(5, 5, 5, 5, 6, false), true, false);
+		widgets.add(dialog);
+
+		dialog.addShellListener(shellExit);
+		dialog.setBackground(parent.getBackground());
+		dialog.setForeground(parent.getForeground());
+		dialog.setBackgroundMode(SWT.INHERIT_FORCE);
+	}
+
+	/**
+	 * Shows the number of occurrences and of searched files.
+	 *
+	 * @param files The number of searched files.
+	 */
+	private void showCount(final int files) {
+		final var lang = configData.getLangRes();
+		info.setText(results.size() + " " + lang.getString("find_matches") + ", " + files + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ lang.getString("files_files")); //$NON-NLS-1$
+	}
+
+	/**
+	 * The virtual table of the occurrences.
+	 */
+	private void table() {
+		table = new Table(dialog, SWT.VIRTUAL | SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE);
+		table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 6, 1));
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		table.addListener(SWT.SetData, setData);
+		table.addSelectionListener(open);
+
+		final var lang = configData.getLangRes();
+		final var file = new TableColumn(table, SWT.LEFT);
+		file.setText(lang.getString("files_column_file")); //$NON-NLS-1$
+		file.setWidth(250);
+		final var line = new TableColumn(table, SWT.RIGHT);
+		line.setText(lang.getString("files_column_line")); //$NON-NLS-1$
+		line.setWidth(60);
+		final var text = new TableColumn(table, SWT.LEFT);
+		text.setText(lang.getString("files_column_text")); //$NON-NLS-1$
+		text.setWidth(350);
+	}
+}
@@ -25,7 +25,9 @@ import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 import static org.eclipse.swt.events.ShellListener.shellActivatedAdapter;
 import static org.eclipse.swt.events.ShellListener.shellClosedAdapter;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.CancellationException;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
@@ -43,7 +45,16 @@ import org.eclipse.swt.widgets.Text;
 import io.github.seerainer.swtextedit.config.ConfigData;
 import io.github.seerainer.swtextedit.config.Icons;
 import io.github.seerainer.swtextedit.layout.Grid;
+import io.github.seerainer.swtextedit.search.IncrementalSearch;
+import io.github.seerainer.swtextedit.search.MatchHighlighter;
+import io.github.seerainer.swtextedit.search.ParallelSearch;
+import io.github.seerainer.swtextedit.search.Search;
+import io.github.seerainer.swtextedit.search.SearchIndex;
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
 import io.github.seerainer.swtextedit.util.LangUtil;
+import io.github.seerainer.swtextedit.util.UndoUtil;
 import io.github.seerainer.swtextedit.widgets.ButtonWidget;
 import io.github.seerainer.swtextedit.widgets.GroupWidget;
 import io.github.seerainer.swtextedit.widgets.LabelWidget;
@@ -57,6 +68,12 @@ import io.github.seerainer.swtextedit.widgets.TextWidget;
  */
 public final class FindReplace {
 
+	/** Milliseconds after the last change of the search text until counting. */
+	private static final int COUNT_DELAY = 150;
+
+	/** The size of the copied chunks of unchanged text in characters. */
+	private static final int CHUNK_SIZE = 1 << 16;
+
 	/** Instances of the Buttons. */
 	private Button forward;
 
@@ -70,6 +87,16 @@ public final class FindReplace {
 	 */
 	private Button sensitiveButton;
 
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button regexButton;
+
+	/**
+	 * Instances of the Buttons.
+	 */
+	private Button incrementalButton;
+
 	/**
 	 * Instances of the Buttons.
 	 */
@@ -93,6 +120,33 @@ public final class FindReplace {
 	/** Instance of GuiConfigData for all configuration data. */
 	private ConfigData configData;
 
+	/** The search while typing. */
+	private IncrementalSearch incremental;
+
+	/** Highlights the occurrences in the text. */
+	private MatchHighlighter highlighter;
+
+	/** Skips the parts of a large text without an occurrence. */
+	private SearchIndex searchIndex;
+
+	/** Finds all occurrences in the background. */
+	private ParallelSearch parallel;
+
+	/** Records the replacement of all occurrences as one entry. */
+	private UndoUtil undoUtil;
+
+	/** The sorted offsets of all occurrences or null while they are searched. */
+	private int[] matches;
+
+	/** True if there are too many occurrences to find all of them. */
+	private boolean limited;
+
+	/** The search text and options of the occurrences. */
+	private String matchesKey;
+
+	/** The text of the occurrences. */
+	private Snapshot matchesSnapshot;
+
 	/** HashSet for the language control. */
 	private final HashSet<Control> widgets = new HashSet<>();
 
@@ -116,21 +170,42 @@ public final class FindReplace {
 	 */
 	private Text replaceText;
 
+	/** Counts the occurrences after the search text was changed. */
+	private final Runnable delayedCount = () -> {
+		if (!dialog.isDisposed() && !text.isDisposed()) {
+			countMatches();
+		}
+	};
+
 	/** Modify listener for the search field. */
-	private final ModifyListener searchModify = e -> enableButtons();
+	private final ModifyListener searchModify = e -> {
+		enableButtons();
+		dialog.getDisplay().timerExec(COUNT_DELAY, delayedCount);
+		if (incrementalButton.getSelection()) {
+			findIncremental();
+		}
+	};
 
 	/** Modify listener for the replace field. */
 	private final ModifyListener replaceModify = e -> enableButtons();
 
-	/** Listener for the sensitive check button. */
-	private final SelectionListener sensitive = widgetSelectedAdapter(e -> enableButtons());
+	/** Listener for the sensitive and the regular expression check buttons. */
+	private final SelectionListener sensitive = widgetSelectedAdapter(e -> {
+		enableButtons();
+		countMatches();
+	});
 
 	/** Listener for the find button. */
 	private final SelectionListener find = widgetSelectedAdapter(e -> {
-		if (findEntry()) {
-			info.setText(""); //$NON-NLS-1$
-		} else {
-			info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+		try {
+			if (findEntry()) {
+				info.setText(""); //$NON-NLS-1$
+				showCount();
+			} else {
+				info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+			}
+		} catch (final IllegalArgumentException | CancellationException ex) {
+			error(ex);
 		}
 		enableButtons();
 		text.setFocus();
@@ -139,11 +214,16 @@ public final class FindReplace {
 
 	/** Listener for the replace/find button. */
 	private final SelectionListener replacefind = widgetSelectedAdapter(e -> {
-		replace();
-		if (findEntry()) {
-			info.setText(""); //$NON-NLS-1$
-		} else {
-			info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+		try {
+			replace();
+			if (findEntry()) {
+				info.setText(""); //$NON-NLS-1$
+				showCount();
+			} else {
+				info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+			}
+		} catch (final IllegalArgumentException | CancellationException ex) {
+			error(ex);
 		}
 		enableButtons();
 		text.setFocus();
@@ -152,28 +232,30 @@ public final class FindReplace {
 
 	/** Listener for the replace button. */
 	private final SelectionListener replace = widgetSelectedAdapter(e -> {
-		replace();
+		try {
+			replace();
+			info.setText(""); //$NON-NLS-1$
+			countMatches();
+		} catch (final IllegalArgumentException | CancellationException ex) {
+			error(ex);
+		}
 		enableButtons();
 		text.setFocus();
 		dialog.setFocus();
-		info.setText(""); //$NON-NLS-1$
 	});
 
 	/** Listener for the replace all button. */
 	private final SelectionListener replaceall = widgetSelectedAdapter(e -> {
-		int counter;
-		if (forward.getSelection()) {
-			text.setCaretOffset(-1);
-		} else {
-			text.setCaretOffset(text.getCharCount());
-		}
-		for (counter = 0; findEntry(); counter++) {
-			replace();
+		try {
+			final var counter = replaceAll();
+			info.setText(counter + " " + configData.getLangRes().getString("find_replaced")); //$NON-NLS-1$ //$NON-NLS-2$
+			countMatches();
+		} catch (final IllegalArgumentException | CancellationException ex) {
+			error(ex);
 		}
 		enableButtons();
 		text.setFocus();
 		dialog.setFocus();
-		info.setText(counter + " " + configData.getLangRes().getString("find_replaced")); //$NON-NLS-1$ //$NON-NLS-2$
 	});
 
 	/** Listener for the close event. */
@@ -185,6 +267,10 @@ public final class FindReplace {
 	/** Listener for closing the dialog. */
 	private final ShellListener shellExit = shellClosedAdapter(e -> {
 		if (e.doit) {
+			dialog.getDisplay().timerExec(-1, delayedCount);
+			incremental.cancel();
+			parallel.cancel();
+			highlighter.setSearch(null);
 			edit.getItem(11).setEnabled(true);
 		}
 	});
@@ -192,15 +278,24 @@ public final class FindReplace {
 	/**
 	 * Public constructor.
 	 *
-	 * @param parent     The parent of the dialog.
-	 * @param configData The configuration values of the GUI.
-	 * @param text       The text widget for the text file.
-	 * @param edit       The edit menu of the drop down menu.
+	 * @param parent      The parent of the dialog.
+	 * @param configData  The configuration values of the GUI.
+	 * @param text        The text widget for the text file.
+	 * @param edit        The edit menu of the drop down menu.
+	 * @param highlighter Highlights the occurrences in the text.
+	 * @param searchIndex Skips the parts of a large text without an occurrence.
+	 * @param undoUtil    Records the replacement of all occurrences.
 	 */
-	public FindReplace(final Shell parent, final ConfigData configData, final StyledText text, final Menu edit) {
+	public FindReplace(final Shell parent, final ConfigData configData, final StyledText text, final Menu edit,
+			final MatchHighlighter highlighter, final SearchIndex searchIndex, final UndoUtil undoUtil) {
 		this.configData = configData;
 		this.text = text;
 		this.edit = edit;
+		this.highlighter = highlighter;
+		this.searchIndex = searchIndex;
+		this.undoUtil = undoUtil;
+		this.incremental = new IncrementalSearch(parent.getDisplay());
+		this.parallel = new ParallelSearch(parent.getDisplay());
 
 		shell(parent);
 		search();
@@ -245,20 +340,15 @@ public final class FindReplace {
 	 * Enables the buttons.
 	 */
 	private void enableButtons() {
-		if (text.getText().length() > 0 && searchText.getCharCount() > 0
-				&& text.getText().length() >= searchText.getCharCount()) {
+		if (text.getCharCount() > 0 && searchText.getCharCount() > 0
+				&& (regexButton.getSelection() || text.getCharCount() >= searchText.getCharCount())) {
 			findButton.setEnabled(true);
 			replaceallButton.setEnabled(true);
 		} else {
 			findButton.setEnabled(false);
 			replaceallButton.setEnabled(false);
 		}
-		if (searchText.getCharCount() > 0 && text.getSelectionCount() > 0
-				&& searchText.getText().equalsIgnoreCase(text.getSelectionText()) && !sensitiveButton.getSelection()) {
-			replaceButton.setEnabled(true);
-			replacefindButton.setEnabled(true);
-		} else if (searchText.getCharCount() > 0 && text.getSelectionCount() > 0
-				&& searchText.getText().equals(text.getSelectionText()) && sensitiveButton.getSelection()) {
+		if (searchText.getCharCount() > 0 && text.getSelectionCount() > 0 && isSelectionFound()) {
 			replaceButton.setEnabled(true);
 			replacefindButton.setEnabled(true);
 		} else {
@@ -268,37 +358,172 @@ public final class FindReplace {
 	}
 
 	/**
-	 * Function for searching.
+	 * Shows why the search failed.
+	 *
+	 * @param e The exception of the search.
+	 */
+	private void error(final RuntimeException e) {
+		if (e instanceof CancellationException) {
+			info.setText(configData.getLangRes().getString("find_timeout")); //$NON-NLS-1$
+		} else {
+			info.setText(configData.getLangRes().getString("find_invalid")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Starts to find all occurrences, unless they are known or searched already.
+	 */
+	private void countMatches() {
+		final var content = (TextContent) text.getContent();
+		final var searchString = searchText.getText();
+		final var ignoreCase = !sensitiveButton.getSelection();
+		final var regex = regexButton.getSelection();
+		final var key = (ignoreCase ? "i" : "c") + (regex ? "r" : "t") + searchString; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (key.equals(matchesKey) && matchesSnapshot != null && content.isCurrent(matchesSnapshot)) {
+			return;
+		}
+		parallel.cancel();
+		matches = null;
+		limited = false;
+		matchesKey = null;
+		matchesSnapshot = null;
+		if (searchString.isEmpty()) {
+			highlighter.setSearch(null);
+			return;
+		}
+		try {
+			highlighter.setSearch(newSearch());
+		} catch (final IllegalArgumentException e) {
+			highlighter.setSearch(null);
+			return;
+		}
+		final var snapshot = content.snapshot();
+		matchesKey = key;
+		matchesSnapshot = snapshot;
+		parallel.start(() -> Search.background(searchString, ignoreCase, regex), snapshot, (found, tooMany) -> {
+			if (!dialog.isDisposed() && !text.isDisposed()) {
+				matches = found;
+				limited = tooMany;
+				showCount();
+			}
+		});
+	}
+
+	/**
+	 * Function for searching. If all occurrences are known, the next one is
+	 * found by a binary search. The known occurrences don't overlap, like the
+	 * ones of a search from the start of the text, so an occurrence which starts
+	 * inside a known one is searched in the range of that one.
 	 *
 	 * @return Return boolean state.
 	 */
 	private boolean findEntry() {
-		var searchString = searchText.getText();
-		var textString = text.getText();
+		final var search = newSearch();
+		final var snapshot = ((TextContent) text.getContent()).snapshot();
 		final var offset = text.getCaretOffset();
+		final var selection = text.getSelectionRange();
 		var start = -1;
 
-		if (!sensitiveButton.getSelection()) {
-			searchString = searchString.toLowerCase();
-			textString = textString.toLowerCase();
-		}
-
+		countMatches();
 		if (forward.getSelection()) {
-			start = textString.indexOf(searchString, offset);
-		} else if (text.getSelectionRange().y > searchString.length()) {
-			start = textString.lastIndexOf(searchString, offset - 1);
+			if (matches != null) {
+				var index = Arrays.binarySearch(matches, offset);
+				index = index < 0 ? -index - 1 : index;
+				var from = offset;
+				if (index < matches.length && matches[index] == offset && selection.y == 0
+						&& search.indexOf(snapshot, offset) == offset && search.end() == offset) {
+					index++;
+					from++;
+				}
+				start = index < matches.length ? matches[index] : -1;
+				if (index > 0 && search.indexOf(snapshot, matches[index - 1]) > -1 && search.end() > from) {
+					final var inside = search.indexOf(snapshot, from, search.end());
+					start = inside > -1 ? inside : start;
+				}
+			} else {
+				final var literal = regexButton.getSelection() ? null : searchText.getText();
+				start = searchIndex.indexOf(search, literal, snapshot, offset);
+				if (start == offset && search.end() == offset && selection.y == 0) {
+					start = searchIndex.indexOf(search, literal, snapshot, offset + 1);
+				}
+			}
 		} else {
-			start = textString.lastIndexOf(searchString, offset - text.getSelectionRange().y - 1);
+			final var from = selection.y > 0 && search.matches(snapshot, selection.x, selection.x + selection.y)
+					? selection.x - 1
+					: offset - 1;
+			if (matches != null) {
+				var index = Arrays.binarySearch(matches, from);
+				index = index < 0 ? -index - 2 : index;
+				start = index < 0 ? -1 : matches[index];
+				if (start > -1 && start < from && search.indexOf(snapshot, start) > -1 && search.end() > start + 1) {
+					start = search.lastIndexOf(snapshot, Math.min(from, search.end() - 1));
+				}
+			} else {
+				start = searchIndex.lastIndexOf(search, regexButton.getSelection() ? null : searchText.getText(),
+						snapshot, from);
+			}
 		}
 
 		if (start > -1) {
-			text.setSelection(start, start + searchString.length());
+			search.indexOf(snapshot, start);
+			text.setSelection(start, search.end());
 			return true;
 		}
 
 		return false;
 	}
 
+	/**
+	 * Searches on a background thread while the search text is typed. The search
+	 * starts at the current occurrence, so it stays selected as long as it
+	 * matches.
+	 */
+	private void findIncremental() {
+		if (searchText.getCharCount() == 0) {
+			incremental.cancel();
+			info.setText(""); //$NON-NLS-1$
+			return;
+		}
+		final Search search;
+		try {
+			search = newBackgroundSearch();
+		} catch (final IllegalArgumentException e) {
+			incremental.cancel();
+			error(e);
+			return;
+		}
+		final var content = (TextContent) text.getContent();
+		final var snapshot = content.snapshot();
+		final var selection = text.getSelectionRange();
+		final var isForward = forward.getSelection();
+		incremental.start(search, snapshot, selection.x, isForward,
+				new IncrementalSearch.Listener() {
+
+					@Override
+					public void failed(final RuntimeException e) {
+						if (!dialog.isDisposed()) {
+							error(e);
+						}
+					}
+
+					@Override
+					public void found(final int start, final int end) {
+						if (dialog.isDisposed() || text.isDisposed() || !content.isCurrent(snapshot)) {
+							return;
+						}
+						if (start > -1) {
+							text.setSelection(start, end);
+							info.setText(""); //$NON-NLS-1$
+							showCount();
+						} else {
+							text.setSelection(selection.x);
+							info.setText(configData.getLangRes().getString("find_notfind")); //$NON-NLS-1$
+						}
+						enableButtons();
+					}
+				});
+	}
+
 	/**
 	 * Moves the window to the top of the drawing order.
 	 */
@@ -306,6 +531,19 @@ public final class FindReplace {
 		dialog.forceActive();
 	}
 
+	/**
+	 * @return Returns true if the selected text is an occurrence of the search.
+	 */
+	private boolean isSelectionFound() {
+		final var selection = text.getSelectionRange();
+		try {
+			return newSearch().matches(((TextContent) text.getContent()).snapshot(), selection.x,
+					selection.x + selection.y);
+		} catch (final IllegalArgumentException | CancellationException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * @return Returns if the dialog is closed.
 	 */
@@ -335,6 +573,13 @@ public final class FindReplace {
 				sensitive);
 		widgets.add(sensitiveButton);
 
+		regexButton = ButtonWidget.newButton(options, SWT.CHECK, "find_options_regex", Grid.newGridData(), sensitive); //$NON-NLS-1$
+		widgets.add(regexButton);
+
+		incrementalButton = ButtonWidget.newButton(options, SWT.CHECK, "find_options_incremental", Grid.newGridData(), //$NON-NLS-1$
+				null);
+		widgets.add(incrementalButton);
+
 		if (configData.isDarkMode()) {
 			direction.setForeground(dialog.getForeground());
 			options.setForeground(dialog.getForeground());
@@ -345,9 +590,90 @@ public final class FindReplace {
 	 * Function for replacing.
 	 */
 	private void replace() {
-		final var start = text.getSelectionRange().x;
-		text.replaceTextRange(start, text.getSelectionCount(), replaceText.getText());
-		text.setSelection(start, start + replaceText.getText().length());
+		final var selection = text.getSelectionRange();
+		final var search = newSearch();
+		final var replacement = search.matches(((TextContent) text.getContent()).snapshot(), selection.x,
+				selection.x + selection.y) ? search.expand(replaceText.getText()) : replaceText.getText();
+		text.replaceTextRange(selection.x, selection.y, replacement);
+		text.setSelection(selection.x, selection.x + replacement.length());
+	}
+
+	/**
+	 * Replaces all occurrences of the search text in one pass. The unchanged
+	 * text between the occurrences is copied chunk by chunk into a buffer
+	 * together with the replacements, and the buffer replaces the text from the
+	 * first to the last occurrence as a single piece, which is also a single
+	 * undo entry.
+	 *
+	 * @return Return the number of replaced occurrences.
+	 */
+	private int replaceAll() {
+		final var search = newSearch();
+		final var snapshot = ((TextContent) text.getContent()).snapshot();
+		final var replaceString = replaceText.getText();
+		final var buffer = new TextBuffer();
+		final var chunk = new char[CHUNK_SIZE];
+		var first = -1;
+		var end = 0;
+		var counter = 0;
+
+		for (var start = search.indexOf(snapshot, 0); start > -1; start = search.indexOf(snapshot,
+				end > start ? end : end + 1)) {
+			if (first < 0) {
+				first = start;
+			} else {
+				for (var position = end; position < start; position += CHUNK_SIZE) {
+					final var count = Math.min(CHUNK_SIZE, start - position);
+					snapshot.getChars(position, position + count, chunk, 0);
+					buffer.append(chunk, 0, count);
+				}
+			}
+			buffer.append(search.expand(replaceString));
+			end = search.end();
+			counter++;
+		}
+
+		if (first > -1) {
+			undoUtil.replace(text, first, end - first, buffer, 0, buffer.length());
+			text.setSelection(first + buffer.length());
+		}
+
+		return counter;
+	}
+
+	/**
+	 * Shows the number of the selected occurrence and of all occurrences.
+	 */
+	private void showCount() {
+		final var lang = configData.getLangRes();
+		if (limited && ((TextContent) text.getContent()).isCurrent(matchesSnapshot)) {
+			info.setText(ParallelSearch.MAX_MATCHES + "+ " + lang.getString("find_matches")); //$NON-NLS-1$ //$NON-NLS-2$
+			return;
+		}
+		if (matches == null || !((TextContent) text.getContent()).isCurrent(matchesSnapshot)) {
+			return;
+		}
+		final var index = Arrays.binarySearch(matches, text.getSelectionRange().x);
+		if (index >= 0) {
+			info.setText((index + 1) + " " + lang.getString("find_of") + " " + matches.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		} else {
+			info.setText(matches.length + " " + lang.getString("find_matches")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * @return Returns a new search for the text of the search field, which runs
+	 *         on a background thread.
+	 */
+	private Search newBackgroundSearch() {
+		return Search.background(searchText.getText(), !sensitiveButton.getSelection(), regexButton.getSelection());
+	}
+
+	/**
+	 * @return Returns a new search for the text of the search field.
+	 */
+	private Search newSearch() {
+		return Search.of(searchText.getText(), !sensitiveButton.getSelection(), regexButton.getSelection());
 	}
 
 	/**
@@ -376,7 +702,7 @@ public final class FindReplace {
 	private void shell(final Shell parent) {
 		edit.getItem(11).setEnabled(false);
 
-		dialog = ShellWidget.newShell(parent, SWT.TOOL | SWT.DIALOG_TRIM, "find", Icons.text, 500, 270, //$NON-NLS-1$
+		dialog = ShellWidget.newShell(parent, SWT.TOOL | SWT.DIALOG_TRIM, "find", Icons.text, 500, 295, //$NON-NLS-1$
 				Grid.newGridLayout(5, 5, 5, 5, 4, true), true, false);
 		widgets.add(dialog);
 
@@ -0,0 +1,172 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.dialog;
+
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.util.HashSet;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+import io.github.seerainer.swtextedit.config.ConfigData;
+import io.github.seerainer.swtextedit.config.Icons;
+import io.github.seerainer.swtextedit.layout.Grid;
+import io.github.seerainer.swtextedit.util.LangUtil;
+import io.github.seerainer.swtextedit.widgets.ButtonWidget;
+import io.github.seerainer.swtextedit.widgets.LabelWidget;
+import io.github.seerainer.swtextedit.widgets.ShellWidget;
+import io.github.seerainer.swtextedit.widgets.TextWidget;
+
+/**
+ * Go to Line dialog.<br>
+ * The offset of the line comes from the line index of the text content, so
+ * every line of a large text is reached at once.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class GotoLine {
+
+	/** HashSet for the language control. */
+	private final HashSet<Control> widgets = new HashSet<>();
+
+	/** Instance of Shell. */
+	private Shell dialog;
+
+	/** Instance of StyledText. */
+	private final StyledText text;
+
+	/** Runs after the caret was moved. */
+	private final Runnable moved;
+
+	/** Shows the range of the line numbers. */
+	private Label info;
+
+	/** The text field of the line number. */
+	private Text lineText;
+
+	/** The button which moves the caret. */
+	private Button okButton;
+
+	/** Modify listener for the line number. */
+	private final ModifyListener lineModify = e -> okButton.setEnabled(line() > 0);
+
+	/** Listener for the OK button. */
+	private final SelectionListener ok = widgetSelectedAdapter(e -> {
+		goTo();
+		dialog.close();
+	});
+
+	/** Listener for the cancel button. */
+	private final SelectionListener cancel = widgetSelectedAdapter(e -> dialog.close());
+
+	/**
+	 * Public constructor.
+	 *
+	 * @param parent     The parent of the dialog.
+	 * @param configData The configuration values of the GUI.
+	 * @param text       The text widget for the text file.
+	 * @param moved      Runs after the caret was moved.
+	 */
+	public GotoLine(final Shell parent, final ConfigData configData, final StyledText text, final Runnable moved) {
+		this.text = text;
+		this.moved = moved;
+
+		shell(parent);
+		field();
+		buttons();
+
+		LangUtil.setLang(widgets, configData);
+		info.setText(configData.getLangRes().getString("goto_line") + " (1 - " + text.getLineCount() + "):"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		dialog.open();
+	}
+
+	/**
+	 * The OK and the cancel button.
+	 */
+	private void buttons() {
+		okButton = ButtonWidget.newButton(dialog, SWT.PUSH, "button_ok", Grid.newGridData(false, false), ok); //$NON-NLS-1$
+		widgets.add(okButton);
+		dialog.setDefaultButton(okButton);
+
+		widgets.add(ButtonWidget.newButton(dialog, SWT.PUSH, "button_cancel", Grid.newGridData(false, false), cancel)); //$NON-NLS-1$
+	}
+
+	/**
+	 * The text field of the line number, which shows the line of the caret.
+	 */
+	private void field() {
+		info = LabelWidget.newLabel(dialog, new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1), null);
+
+		lineText = TextWidget.newText(dialog, SWT.SINGLE | SWT.BORDER, Grid.newGridData(2, 1), true, true);
+		lineText.setText(Integer.toString(text.getLineAtOffset(text.getCaretOffset()) + 1));
+		lineText.selectAll();
+		lineText.addModifyListener(lineModify);
+	}
+
+	/**
+	 * Moves the caret to the start of the line and shows the line in the middle
+	 * of the text widget.
+	 */
+	private void goTo() {
+		final var line = Math.min(Math.max(line(), 1), text.getLineCount()) - 1;
+		text.setSelection(text.getOffsetAtLine(line));
+		text.setTopIndex(Math.max(0, line - text.getClientArea().height / text.getLineHeight() / 2));
+		moved.run();
+	}
+
+	/**
+	 * @return Returns the line number of the text field or 0 if it is no
+	 *         number.
+	 */
+	private int line() {
+		try {
+			return Integer.parseInt(lineText.getText().trim());
+		} catch (final NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Creates a new Shell for the go to line dialog.
+	 *
+	 * @param parent The parent of the dialog.
+	 */
+	private void shell(final Shell parent) {
+		dialog = ShellWidget.newShell(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL, "goto", Icons.text, 300, 140, //$NON-NLS-1$
+				Grid.newGridLayout(5, 5, 5, 5, 2, true), true, false);
+		widgets.add(dialog);
+
+		dialog.setBackground(parent.getBackground());
+		dialog.setForeground(parent.getForeground());
+		dialog.setBackgroundMode(SWT.INHERIT_FORCE);
+	}
+}
@@ -0,0 +1,373 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.io;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+
+import io.github.seerainer.swtextedit.config.CharacterEncoding;
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.util.StatusBarUtil;
+
+/**
+ * Opens files on virtual threads.<br>
+ * The file is read in batches, the first one only holds the first screen. The
+ * batches are appended to the text content on the UI thread without copying
+ * them, so the text is shown at once and grows while the rest of the file is
+ * read. A new text in the content stops the reading.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class BackgroundOpen {
+
+	/**
+	 * Receives the end of an open on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called before the first batch with the encoding of the file.
+		 *
+		 * @param encoding The detected character encoding of the file.
+		 */
+		void detected(FileEncoding encoding);
+
+		/**
+		 * Called if the open finished or was stopped by {@link #stop()}.
+		 *
+		 * @param complete True if the whole file was read.
+		 * @param stopped  True if the open was stopped.
+		 */
+		void opened(boolean complete, boolean stopped);
+	}
+
+	/**
+	 * One running open.
+	 */
+	private static final class Load implements TextChangeListener {
+
+		/** The batches which are not appended yet. */
+		private final ConcurrentLinkedQueue<TextBuffer> pending = new ConcurrentLinkedQueue<>();
+
+		/** True if appending the pending batches is scheduled. */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/** True if the open was stopped or replaced. */
+		private final AtomicBoolean cancelled = new AtomicBoolean();
+
+		/** The content which receives the text. */
+		private final TextContent content;
+
+		/** The display of the text widget. */
+		private final Display display;
+
+		/** The progress in the status bar. */
+		private final StatusBarUtil.Progress progress;
+
+		/** Receives the end of the open. */
+		private final Listener listener;
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param content  The content which receives the text.
+		 * @param display  The display of the text widget.
+		 * @param progress The progress in the status bar.
+		 * @param listener Receives the end of the open.
+		 */
+		private Load(final TextContent content, final Display display, final StatusBarUtil.Progress progress,
+				final Listener listener) {
+			this.content = content;
+			this.display = display;
+			this.progress = progress;
+			this.listener = listener;
+		}
+
+		/**
+		 * Appends the pending batches to the content on the UI thread.
+		 */
+		private void append() {
+			scheduled.set(false);
+			TextBuffer text;
+			while (!cancelled.get() && (text = pending.poll()) != null) {
+				content.append(text);
+			}
+		}
+
+		/**
+		 * Stops the open on the UI thread.
+		 */
+		private void cancel() {
+			cancelled.set(true);
+			progress.stop();
+			pending.clear();
+			content.removeTextChangeListener(this);
+			if (running == this) {
+				running = null;
+			}
+		}
+
+		/**
+		 * Hands the detected encoding to the listener on the UI thread.
+		 *
+		 * @param encoding The character encoding of the file.
+		 */
+		private void detected(final FileEncoding encoding) {
+			post(() -> {
+				if (!cancelled.get()) {
+					listener.detected(encoding);
+				}
+			});
+		}
+
+		/**
+		 * Appends the rest and ends the open on the UI thread.
+		 *
+		 * @param failed True if the file couldn't be read.
+		 */
+		private void finish(final boolean failed) {
+			append();
+			if (cancelled.get()) {
+				return;
+			}
+			cancel();
+			listener.opened(!failed, false);
+		}
+
+		/**
+		 * Receives the next batch on the worker thread.
+		 *
+		 * @param text     The characters of the batch.
+		 * @param read     The number of bytes read so far.
+		 * @param fileSize The size of the file in bytes.
+		 * @return Returns false if the open was stopped.
+		 */
+		private boolean read(final TextBuffer text, final long read, final long fileSize) {
+			if (cancelled.get()) {
+				return false;
+			}
+			pending.add(text);
+			progress.set(read, fileSize);
+			if (scheduled.compareAndSet(false, true)) {
+				post(this::append);
+			}
+			return true;
+		}
+
+		/**
+		 * Empties the content for reading the file again on the worker thread.<br>
+		 * The text read so far is appended and replaced on the UI thread without
+		 * stopping the open, the listener gets the new encoding. The worker waits
+		 * until this is done, so no batch of the new encoding is lost.
+		 *
+		 * @param encoding The character encoding for reading the file again.
+		 * @return Returns false if the open was stopped.
+		 * @throws InterruptedException If the worker was interrupted while waiting.
+		 */
+		private boolean restart(final FileEncoding encoding) throws InterruptedException {
+			final var done = new CountDownLatch(1);
+			post(() -> {
+				try {
+					append();
+					if (!cancelled.get()) {
+						content.removeTextChangeListener(this);
+						content.setText(new TextBuffer());
+						content.addTextChangeListener(this);
+						listener.detected(encoding);
+					}
+				} finally {
+					done.countDown();
+				}
+			});
+			while (!done.await(100, TimeUnit.MILLISECONDS)) {
+				if (cancelled.get() || display.isDisposed()) {
+					return false;
+				}
+			}
+			return !cancelled.get();
+		}
+
+		/**
+		 * Hands the runnable to the UI thread.
+		 *
+		 * @param runnable The runnable to execute on the UI thread.
+		 */
+		private void post(final Runnable runnable) {
+			if (display.isDisposed()) {
+				return;
+			}
+			try {
+				display.asyncExec(runnable);
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public void textChanged(final TextChangedEvent event) {
+			// only a new text stops the open
+		}
+
+		@Override
+		public void textChanging(final TextChangingEvent event) {
+			// only a new text stops the open
+		}
+
+		@Override
+		public void textSet(final TextChangedEvent event) {
+			cancel();
+		}
+	}
+
+	/** The running open, only used by the UI thread. */
+	private static Load running;
+
+	/**
+	 * Waits until the running open finished.<br>
+	 * The shell is disabled while waiting, but the events are still dispatched so
+	 * the window is painted and the text grows.
+	 *
+	 * @param shell The shell of the text widget.
+	 */
+	public static void await(final Shell shell) {
+		if (running == null) {
+			return;
+		}
+		final var display = shell.getDisplay();
+		final var enabled = shell.getEnabled();
+		shell.setEnabled(false);
+		try {
+			while (running != null && !display.isDisposed()) {
+				if (!display.readAndDispatch()) {
+					display.sleep();
+				}
+			}
+		} finally {
+			if (!shell.isDisposed()) {
+				shell.setEnabled(enabled);
+			}
+		}
+	}
+
+	/**
+	 * @return Returns true if an open is running.
+	 */
+	public static boolean isRunning() {
+		return running != null;
+	}
+
+	/**
+	 * Replaces the text with the file, which is read on a virtual thread.<br>
+	 * Without a given encoding the encoding of the file is detected on the thread
+	 * before reading, files which are ASCII only get the default encoding. Bytes
+	 * which aren't valid in the encoding, e.g. after the part checked by the
+	 * detection, restart the reading as ISO-8859-1, so saving writes back every
+	 * byte. A running open is stopped without calling its listener.
+	 *
+	 * @param file     The file which will be read.
+	 * @param text     The text widget which receives the content of the file.
+	 * @param charset  The character encoding of the file, or null to detect it.
+	 * @param status   The label of the status bar for the progress, may be null.
+	 * @param message  The text in front of the percentage.
+	 * @param listener Receives the end of the open on the UI thread.
+	 * @return Returns false if the file can't be opened.
+	 */
+	public static boolean open(final File file, final StyledText text, final Charset charset, final Label status,
+			final String message, final Listener listener) {
+		final FileChannel channel;
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		} catch (final Exception e) {
+			e.printStackTrace();
+			return false;
+		}
+		final var content = (TextContent) text.getContent();
+		final var fallback = Charset.forName(CharacterEncoding.getEncoding());
+		content.setText(new TextBuffer());
+
+		final var load = new Load(content, text.getDisplay(), new StatusBarUtil.Progress(status, message, 0),
+				listener);
+		content.addTextChangeListener(load);
+		running = load;
+		Thread.ofVirtual().start(() -> {
+			var failed = false;
+			try (channel) {
+				final var encoding = charset == null ? CharsetDetector.detect(channel, fallback)
+						: CharsetDetector.bom(channel, charset);
+				load.detected(encoding);
+				try {
+					IO.read(channel, encoding, load::read);
+				} catch (final CharacterCodingException e) {
+					if (StandardCharsets.ISO_8859_1.equals(encoding.getCharset())) {
+						throw e;
+					}
+					final var latin1 = new FileEncoding(StandardCharsets.ISO_8859_1, false);
+					if (load.restart(latin1)) {
+						IO.read(channel, latin1, load::read);
+					}
+				}
+			} catch (final Exception e) {
+				e.printStackTrace();
+				failed = true;
+			}
+			final var result = failed;
+			load.post(() -> load.finish(result));
+		});
+		load.progress.start(load.display);
+		return true;
+	}
+
+	/**
+	 * Stops the running open, the text keeps the part of the file which was
+	 * read.
+	 */
+	public static void stop() {
+		final var load = running;
+		if (load != null) {
+			load.cancel();
+			load.listener.opened(false, true);
+		}
+	}
+
+	/** Private empty constructor. */
+	private BackgroundOpen() {
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.io;
+
+import java.io.File;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.util.StatusBarUtil;
+
+/**
+ * Saves files on virtual threads.<br>
+ * The UI thread only takes an unchangeable snapshot of the text, so typing goes
+ * on while the snapshot is written. The saves run one after another in the
+ * order they were started and the progress is shown in the status bar.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class BackgroundSave {
+
+	/**
+	 * Receives the result of a save on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called if the save finished.
+		 *
+		 * @param success True if the file was saved.
+		 * @param current True if the text has not changed since the save started.
+		 */
+		void saved(boolean success, boolean current);
+	}
+
+	/** The thread of the last started save, only used by the UI thread. */
+	private static Thread last;
+
+	/** The number of running saves, only used by the UI thread. */
+	private static int running;
+
+	/**
+	 * Waits until all saves finished.<br>
+	 * The shell is disabled while waiting, but the events are still dispatched so
+	 * the window is painted and the progress is shown.
+	 *
+	 * @param shell The shell of the text widget.
+	 */
+	public static void await(final Shell shell) {
+		if (running == 0) {
+			return;
+		}
+		final var display = shell.getDisplay();
+		final var enabled = shell.getEnabled();
+		shell.setEnabled(false);
+		try {
+			while (running > 0 && !display.isDisposed()) {
+				if (!display.readAndDispatch()) {
+					display.sleep();
+				}
+			}
+		} finally {
+			if (!shell.isDisposed()) {
+				shell.setEnabled(enabled);
+			}
+		}
+	}
+
+	/**
+	 * @return Returns true if a save is running.
+	 */
+	public static boolean isRunning() {
+		return running > 0;
+	}
+
+	/**
+	 * Saves a snapshot of the text into a file on a virtual thread.
+	 *
+	 * @param file     The file which will be saved.
+	 * @param text     The text widget which contains the text.
+	 * @param encoding The character encoding of the file.
+	 * @param status   The label of the status bar for the progress, may be null.
+	 * @param message  The text in front of the percentage.
+	 * @param listener Gets the result on the UI thread.
+	 */
+	public static void save(final File file, final StyledText text, final FileEncoding encoding, final Label status,
+			final String message, final Listener listener) {
+		final var content = (TextContent) text.getContent();
+		final var snapshot = content.snapshot();
+		final var display = text.getDisplay();
+		final var progress = new StatusBarUtil.Progress(status, message, snapshot.length());
+		final var previous = last;
+
+		running++;
+		last = Thread.ofVirtual().start(() -> {
+			if (previous != null) {
+				try {
+					previous.join();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			final var success = IO.save(file, snapshot, encoding, progress::set);
+			try {
+				display.asyncExec(() -> {
+					running--;
+					progress.stop();
+					listener.saved(success, content.isCurrent(snapshot));
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+		progress.start(display);
+	}
+
+	/** Private empty constructor. */
+	private BackgroundSave() {
+	}
+}
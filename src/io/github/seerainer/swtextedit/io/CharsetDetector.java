@@ -0,0 +1,243 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.swt.SWT;
+
+import io.github.seerainer.swtextedit.config.FileEncoding;
+
+/**
+ * Detects the character encoding of a file from its first bytes.<br>
+ * A byte order mark decides the encoding. Otherwise UTF-16 is recognized by
+ * the null bytes of ASCII characters, and the first MB is checked for valid
+ * UTF-8, eight ASCII bytes at a time. A file which isn't UTF-8 is read as
+ * ISO-8859-1. Invalid bytes after the first MB are found while reading, then
+ * the file is read again as ISO-8859-1.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class CharsetDetector {
+
+	/** The number of bytes at the start of the file which are checked. */
+	private static final int SAMPLE_SIZE = 1 << 20;
+
+	/** The number of bytes which are checked for UTF-16 without a byte order mark. */
+	private static final int PROBE = 1 << 12;
+
+	/** The mask of the high bits of eight bytes. */
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	/**
+	 * Reads the file with the given encoding, its byte order mark is skipped.
+	 *
+	 * @param channel The channel of the file.
+	 * @param charset The character encoding of the file.
+	 * @return Returns the encoding with or without a byte order mark.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static FileEncoding bom(final FileChannel channel, final Charset charset) throws IOException {
+		final var bom = new FileEncoding(charset, true).getBom();
+		if (bom.length == 0) {
+			return new FileEncoding(charset, false);
+		}
+		final var head = ByteBuffer.allocate(bom.length);
+		while (head.hasRemaining() && channel.read(head, head.position()) >= 0) {
+			// read until the byte order mark is complete
+		}
+		return new FileEncoding(charset, head.flip().equals(ByteBuffer.wrap(bom)));
+	}
+
+	/**
+	 * Checks if the bytes are valid UTF-8.
+	 *
+	 * @param bytes     The first bytes of the file.
+	 * @param truncated True if the file has more bytes, so the last character may
+	 *                  be cut.
+	 * @return Returns -1 if the bytes aren't UTF-8, 0 if they are ASCII only and 1
+	 *         if they are UTF-8 with other characters.
+	 */
+	private static int checkUtf8(final ByteBuffer bytes, final boolean truncated) {
+		final var limit = bytes.limit();
+		var ascii = true;
+		var i = 0;
+		while (i < limit) {
+			if (i + 8 <= limit && (bytes.getLong(i) & HIGH_BITS) == 0) {
+				i += 8;
+				continue;
+			}
+			final var b = bytes.get(i) & 0xFF;
+			if (b < 0x80) {
+				i++;
+				continue;
+			}
+			ascii = false;
+			final int count;
+			var low = 0x80;
+			var high = 0xBF;
+			if (b >= 0xC2 && b <= 0xDF) {
+				count = 1;
+			} else if (b >= 0xE0 && b <= 0xEF) {
+				count = 2;
+				if (b == 0xE0) {
+					low = 0xA0;
+				} else if (b == 0xED) {
+					high = 0x9F;
+				}
+			} else if (b >= 0xF0 && b <= 0xF4) {
+				count = 3;
+				if (b == 0xF0) {
+					low = 0x90;
+				} else if (b == 0xF4) {
+					high = 0x8F;
+				}
+			} else {
+				return -1;
+			}
+			for (var n = 1; n <= count; n++) {
+				if (i + n >= limit) {
+					return truncated ? 1 : -1;
+				}
+				final var c = bytes.get(i + n) & 0xFF;
+				if (c < low || c > high) {
+					return -1;
+				}
+				low = 0x80;
+				high = 0xBF;
+			}
+			i += count + 1;
+		}
+		return ascii ? 0 : 1;
+	}
+
+	/**
+	 * Detects the character encoding of the file.
+	 *
+	 * @param channel  The channel of the file.
+	 * @param fallback The encoding of files which are ASCII only.
+	 * @return Returns the detected encoding.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static FileEncoding detect(final FileChannel channel, final Charset fallback) throws IOException {
+		final var size = channel.size();
+		final var count = (int) Math.min(size, SAMPLE_SIZE);
+		final ByteBuffer head;
+		if ("win32".equals(SWT.getPlatform())) { //$NON-NLS-1$
+			head = ByteBuffer.allocate(count);
+			while (head.hasRemaining() && channel.read(head, head.position()) >= 0) {
+				// read until the sample is full
+			}
+			head.flip();
+		} else {
+			head = channel.map(MapMode.READ_ONLY, 0, count);
+		}
+		return detect(head, size > count, fallback);
+	}
+
+	/**
+	 * Detects the character encoding of the first bytes of a file.
+	 *
+	 * @param bytes     The first bytes of the file.
+	 * @param truncated True if the file has more bytes.
+	 * @param fallback  The encoding of files which are ASCII only.
+	 * @return Returns the detected encoding.
+	 */
+	static FileEncoding detect(final ByteBuffer bytes, final boolean truncated, final Charset fallback) {
+		final var limit = bytes.limit();
+		final var b0 = limit > 0 ? bytes.get(0) & 0xFF : -1;
+		final var b1 = limit > 1 ? bytes.get(1) & 0xFF : -1;
+		final var b2 = limit > 2 ? bytes.get(2) & 0xFF : -1;
+		final var b3 = limit > 3 ? bytes.get(3) & 0xFF : -1;
+		if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+			return new FileEncoding(StandardCharsets.UTF_8, true);
+		}
+		if (b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0) {
+			return new FileEncoding(Charset.forName("UTF-32LE"), true); //$NON-NLS-1$
+		}
+		if (b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF) {
+			return new FileEncoding(Charset.forName("UTF-32BE"), true); //$NON-NLS-1$
+		}
+		if (b0 == 0xFF && b1 == 0xFE) {
+			return new FileEncoding(StandardCharsets.UTF_16LE, true);
+		}
+		if (b0 == 0xFE && b1 == 0xFF) {
+			return new FileEncoding(StandardCharsets.UTF_16BE, true);
+		}
+
+		final var utf16 = detectUtf16(bytes);
+		if (utf16 != null) {
+			return new FileEncoding(utf16, false);
+		}
+		return switch (checkUtf8(bytes, truncated)) {
+		case 0 -> new FileEncoding(isAsciiCompatible(fallback) ? fallback : StandardCharsets.UTF_8, false);
+		case 1 -> new FileEncoding(StandardCharsets.UTF_8, false);
+		default -> new FileEncoding(StandardCharsets.ISO_8859_1, false);
+		};
+	}
+
+	/**
+	 * Detects UTF-16 without a byte order mark by the null bytes of ASCII
+	 * characters, which are all on even or all on odd positions.
+	 *
+	 * @param bytes The first bytes of the file.
+	 * @return Returns the UTF-16 encoding or null if the bytes aren't UTF-16.
+	 */
+	private static Charset detectUtf16(final ByteBuffer bytes) {
+		final var limit = Math.min(bytes.limit(), PROBE) & ~1;
+		var even = 0;
+		var odd = 0;
+		for (var i = 0; i < limit; i += 2) {
+			if (bytes.get(i) == 0) {
+				even++;
+			}
+			if (bytes.get(i + 1) == 0) {
+				odd++;
+			}
+		}
+		final var pairs = limit / 2;
+		if (even == 0 && odd > pairs / 4) {
+			return StandardCharsets.UTF_16LE;
+		}
+		if (odd == 0 && even > pairs / 4) {
+			return StandardCharsets.UTF_16BE;
+		}
+		return null;
+	}
+
+	/**
+	 * @param charset The character encoding.
+	 * @return Returns true if ASCII characters are single bytes in the encoding.
+	 */
+	private static boolean isAsciiCompatible(final Charset charset) {
+		return StandardCharsets.UTF_8.equals(charset) || charset.newEncoder().maxBytesPerChar() == 1;
+	}
+
+	/** Private empty constructor. */
+	private CharsetDetector() {
+	}
+}
@@ -21,17 +21,29 @@
  */
 package io.github.seerainer.swtextedit.io;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
 
-import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.SWT;
 
-import io.github.seerainer.swtextedit.config.CharacterEncoding;
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
 
 /**
  * Input / Output class.
@@ -41,47 +53,275 @@ import io.github.seerainer.swtextedit.config.CharacterEncoding;
 public final class IO {
 
 	/**
-	 * Method for opening a file into the text widget.
+	 * Receives the text of a file in batches while it is read.
+	 */
+	public interface Batch {
+
+		/**
+		 * Called on the reading thread with the next characters of the file.
+		 *
+		 * @param text     The characters of the batch, the buffer isn't changed
+		 *                 afterwards.
+		 * @param position The number of bytes read so far.
+		 * @param size     The size of the file in bytes.
+		 * @return Returns false to stop reading.
+		 */
+		boolean read(TextBuffer text, long position, long size);
+	}
+
+	/** The size of the first batch in bytes, enough for the first screen. */
+	private static final int FIRST_BATCH = 1 << 16;
+
+	/** The size of the following batches in bytes. */
+	private static final int BATCH_SIZE = 1 << 22;
+
+	/** The size of the decoded chunks in characters. */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/** Files of at least this size are mapped instead of decoded, if possible. */
+	private static final long MAP_THRESHOLD = 1L << 24;
+
+	/**
+	 * The reusable chunk for the characters to encode.<br>
+	 * Saves run on a worker thread one after another, so it is only used by one
+	 * save at a time.
+	 */
+	private static final CharBuffer unencoded = CharBuffer.allocate(CHUNK_SIZE);
+
+	/** The reusable buffer for the encoded bytes. */
+	private static final ByteBuffer bytes = ByteBuffer.allocateDirect(CHUNK_SIZE << 2);
+
+	/** The reusable encoder of the last saved file. */
+	private static CharsetEncoder encoder;
+
+	/**
+	 * Decodes one batch of the file chunk by chunk into the buffer.<br>
+	 * The batch is mapped, so only the decoded characters are stored on the heap.
 	 *
-	 * @param file The file which will be converted into a String.
-	 * @param text The String of the file loaded into this text widget.
-	 * @return Returns the success of opening the file.
+	 * @param channel  The channel of the file.
+	 * @param decoder  The decoder of the file, which keeps its state between the
+	 *                 batches.
+	 * @param chunk    The chunk for the decoded characters.
+	 * @param position The position of the batch in the file.
+	 * @param count    The size of the batch in bytes.
+	 * @param buffer   The buffer which receives the characters.
+	 * @return Returns the position after the decoded bytes.
+	 * @throws IOException If the file can't be read or decoded.
 	 */
-	public static boolean open(final File file, final StyledText text) {
-		try (final var br = new BufferedReader(
-				new InputStreamReader(new FileInputStream(file), CharacterEncoding.getEncoding()))) {
-			final var buff = new StringBuilder();
+	private static long decode(final FileChannel channel, final CharsetDecoder decoder, final CharBuffer chunk,
+			final long position, final int count, final TextBuffer buffer) throws IOException {
+		final var size = channel.size();
+		final var region = channel.map(MapMode.READ_ONLY, position, Math.min(count, size - position));
+		final var endOfInput = position + region.capacity() == size;
+		var result = decoder.decode(region, chunk, endOfInput);
+		while (result.isOverflow()) {
+			flush(chunk, buffer);
+			result = decoder.decode(region, chunk, endOfInput);
+		}
+		if (result.isError()) {
+			result.throwException();
+		}
+		if (!endOfInput && region.position() == 0) {
+			throw new IOException("Can't decode the file"); //$NON-NLS-1$
+		}
+		if (endOfInput) {
+			while (decoder.flush(chunk).isOverflow()) {
+				flush(chunk, buffer);
+			}
+		}
+		flush(chunk, buffer);
+		return position + region.position();
+	}
 
-			br.lines().forEach(line -> buff.append(line + "\n"));//$NON-NLS-1$
+	/**
+	 * Encodes the text chunk by chunk into the channel.<br>
+	 * The chunk and the encoded bytes are reused, so the memory stays the same
+	 * for every size of the text.
+	 *
+	 * @param text     The text to encode.
+	 * @param charset  The character encoding of the file.
+	 * @param channel  The channel of the file.
+	 * @param progress Gets the number of encoded characters after every chunk.
+	 * @throws IOException If the file can't be written.
+	 */
+	private static void encode(final Snapshot text, final Charset charset, final FileChannel channel,
+			final IntConsumer progress) throws IOException {
+		if (encoder == null || !encoder.charset().equals(charset)) {
+			encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		} else {
+			encoder.reset();
+		}
+		unencoded.clear();
+		bytes.clear();
 
-			text.setText(buff.toString());
-			return true;
-		} catch (final Exception e) {
-			e.printStackTrace();
+		final var length = text.length();
+		var position = 0;
+		do {
+			final var count = Math.min(unencoded.remaining(), length - position);
+			text.getChars(position, position + count, unencoded.array(), unencoded.position());
+			unencoded.position(unencoded.position() + count);
+			position += count;
+			unencoded.flip();
+			final var endOfInput = position == length;
+			var result = encoder.encode(unencoded, bytes, endOfInput);
+			while (result.isOverflow()) {
+				write(channel);
+				result = encoder.encode(unencoded, bytes, endOfInput);
+			}
+			if (result.isError()) {
+				result.throwException();
+			}
+			unencoded.compact();
+			progress.accept(position);
+		} while (position < length);
+
+		while (encoder.flush(bytes).isOverflow()) {
+			write(channel);
 		}
+		write(channel);
+		unencoded.clear();
+	}
 
-		return false;
+	/**
+	 * Appends the decoded characters of the chunk to the buffer.
+	 *
+	 * @param chunk  The chunk of the decoded characters.
+	 * @param buffer The buffer which receives the characters.
+	 */
+	private static void flush(final CharBuffer chunk, final TextBuffer buffer) {
+		buffer.append(chunk.array(), 0, chunk.position());
+		chunk.clear();
+	}
+
+	/**
+	 * Reads the file batch by batch, beginning with a small batch for the first
+	 * screen.<br>
+	 * Large files are mapped region by region as buffers of the text, if every
+	 * byte is one character in the encoding. A UTF-8 file is mapped until the
+	 * first region which isn't ASCII, the rest is decoded. Invalid bytes aren't
+	 * replaced, because the replacement would be saved instead of the bytes. The
+	 * file isn't mapped on Windows, because a mapped file can't be replaced there
+	 * while the mapping exists. The mapped text stays backed by the file, so if
+	 * another program truncates it while it is open, the cut off characters are
+	 * lost and read as U+FFFD, see {@link TextBuffer}.
+	 *
+	 * @param channel  The channel of the file.
+	 * @param encoding The character encoding of the file, its byte order mark is
+	 *                 skipped.
+	 * @param batch    Receives the text of the file in batches.
+	 * @throws IOException If the file can't be read, a
+	 *                     {@link java.nio.charset.CharacterCodingException} if
+	 *                     the bytes aren't valid in the encoding.
+	 */
+	public static void read(final FileChannel channel, final FileEncoding encoding, final Batch batch)
+			throws IOException {
+		final var charset = encoding.getCharset();
+		final var size = channel.size();
+		final var latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+		var mapped = size >= MAP_THRESHOLD && !"win32".equals(SWT.getPlatform()) //$NON-NLS-1$
+				&& (latin1 || StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.UTF_8.equals(charset));
+		final var decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		final var chunk = CharBuffer.allocate(CHUNK_SIZE);
+
+		var position = (long) encoding.getBom().length;
+		var count = FIRST_BATCH;
+		while (position < size) {
+			TextBuffer text = null;
+			if (mapped) {
+				final var region = channel.map(MapMode.READ_ONLY, position, Math.min(count, size - position));
+				try {
+					text = TextBuffer.wrap(region, !latin1);
+				} catch (final InternalError e) {
+					throw new IOException("The file was truncated while reading", e); //$NON-NLS-1$
+				}
+				mapped = text != null;
+				if (mapped) {
+					position += region.capacity();
+				}
+			}
+			if (text == null) {
+				text = new TextBuffer();
+				position = decode(channel, decoder, chunk, position, count, text);
+			}
+			if (!batch.read(text, position, size)) {
+				return;
+			}
+			count = BATCH_SIZE;
+		}
 	}
 
 	/**
-	 * Method for saving the String into a file.
+	 * Method for saving the text into a file.<br>
+	 * The text is encoded chunk by chunk into a temporary file next to the file,
+	 * which is forced to the disk and then moved over the file. A crash while
+	 * saving leaves the old file intact.
 	 *
-	 * @param file The file which will be saved.
-	 * @param text The content of the file as String.
+	 * @param file     The file which will be saved.
+	 * @param text     The text which will be encoded into the file.
+	 * @param encoding The character encoding of the file, with or without a byte
+	 *                 order mark.
+	 * @param progress Gets the number of saved characters while saving.
 	 * @return Returns the success of saving the file.
 	 */
-	public static boolean save(final File file, final String text) {
-		try (final var bw = new BufferedWriter(
-				new OutputStreamWriter(new FileOutputStream(file), CharacterEncoding.getEncoding()))) {
-			bw.write(text);
+	public static boolean save(final File file, final Snapshot text, final FileEncoding encoding,
+			final IntConsumer progress) {
+		Path temp = null;
+		try {
+			var target = file.getAbsoluteFile().toPath();
+			if (Files.exists(target)) {
+				target = target.toRealPath();
+			}
+			temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+			try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				channel.write(ByteBuffer.wrap(encoding.getBom()));
+				encode(text, encoding.getCharset(), channel, progress);
+				channel.force(true);
+			}
+			if (Files.exists(target)) {
+				try {
+					Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+				} catch (final UnsupportedOperationException e) {
+					// the file system has no POSIX permissions
+				}
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (final AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			temp = null;
 			return true;
 		} catch (final Exception e) {
 			e.printStackTrace();
+		} finally {
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (final IOException e) {
+					e.printStackTrace();
+				}
+			}
 		}
 
 		return false;
 	}
 
+	/**
+	 * Writes the encoded bytes to the channel.
+	 *
+	 * @param channel The channel of the file.
+	 * @throws IOException If the file can't be written.
+	 */
+	private static void write(final FileChannel channel) throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+
 	/** Private empty constructor. */
 	private IO() {
 	}
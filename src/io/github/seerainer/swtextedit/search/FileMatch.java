@@ -0,0 +1,97 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+/**
+ * An occurrence of a search in a file.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class FileMatch {
+
+	/** The path of the file. */
+	private final String path;
+
+	/** The offset of the occurrence in the characters of the file. */
+	private final int start;
+
+	/** The offset after the occurrence. */
+	private final int end;
+
+	/** The number of the line, starting with 1. */
+	private final int line;
+
+	/** The text of the line around the occurrence. */
+	private final String text;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param path  The path of the file.
+	 * @param start The offset of the occurrence in the characters of the file.
+	 * @param end   The offset after the occurrence.
+	 * @param line  The number of the line, starting with 1.
+	 * @param text  The text of the line around the occurrence.
+	 */
+	public FileMatch(final String path, final int start, final int end, final int line, final String text) {
+		this.path = path;
+		this.start = start;
+		this.end = end;
+		this.line = line;
+		this.text = text;
+	}
+
+	/**
+	 * @return Return end.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return Return line.
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * @return Return path.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return Return start.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return Return text.
+	 */
+	public String getText() {
+		return text;
+	}
+}
@@ -0,0 +1,392 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+import io.github.seerainer.swtextedit.config.FileEncoding;
+
+/**
+ * Replaces all occurrences of a search in many files.<br>
+ * Every file is read as {@link FileText} like by {@link FileSearch}, but bytes
+ * which are not valid in the detected encoding fail the file instead of being
+ * read as ISO-8859-1. A literal search reads the file chunk by chunk, a
+ * regular expression reads it whole up to a limit. The text between the
+ * occurrences and the replacements are encoded chunk by chunk into a temporary
+ * file next to the file, which is forced to the disk and then moved over the
+ * file. The original files are kept in a {@link ReplaceJournal}. A
+ * dry run without a journal only counts the occurrences. The files are
+ * processed in parallel on virtual threads.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class FileReplace {
+
+	/**
+	 * Receives the result of a replace on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called if all files are processed or the replace was cancelled.
+		 *
+		 * @param counts    The number of occurrences by path, only files with
+		 *                  occurrences are included.
+		 * @param failed    The number of files which couldn't be processed.
+		 * @param cancelled True if the replace was cancelled.
+		 */
+		void finished(Map<String, Integer> counts, int failed, boolean cancelled);
+	}
+
+	/**
+	 * Encodes characters into a file.
+	 */
+	private static final class Output implements Closeable {
+
+		/** The channel of the file. */
+		private final FileChannel channel;
+
+		/** The encoder of the characters. */
+		private final CharsetEncoder encoder;
+
+		/** The encoded bytes which are not written yet. */
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/** A high surrogate at the end of a chunk, which is encoded with the next one. */
+		private final CharBuffer carry = CharBuffer.allocate(2);
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param path     The file to write.
+		 * @param encoding The character encoding of the file, its byte order mark
+		 *                 is written first.
+		 * @throws IOException If the file can't be opened or written.
+		 */
+		private Output(final Path path, final FileEncoding encoding) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.encoder = encoding.getCharset().newEncoder();
+			buffer.put(encoding.getBom());
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+		/**
+		 * Writes the encoded bytes to the file.
+		 *
+		 * @throws IOException If the file can't be written.
+		 */
+		private void drain() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		/**
+		 * Encodes characters and writes full buffers to the file.
+		 *
+		 * @param in         The characters.
+		 * @param endOfInput True if no characters follow.
+		 * @throws IOException If a character can't be encoded or the file can't
+		 *                     be written.
+		 */
+		private void encode(final CharBuffer in, final boolean endOfInput) throws IOException {
+			for (;;) {
+				final var result = encoder.encode(in, buffer, endOfInput);
+				if (result.isOverflow()) {
+					drain();
+				} else if (result.isError()) {
+					result.throwException();
+				} else {
+					break;
+				}
+			}
+			if (in.hasRemaining()) {
+				carry.put(in);
+			}
+		}
+
+		/**
+		 * Encodes the last characters and forces the file to the disk.
+		 *
+		 * @throws IOException If the file can't be written.
+		 */
+		private void finish() throws IOException {
+			carry.flip();
+			encode(carry, true);
+			while (encoder.flush(buffer).isOverflow()) {
+				drain();
+			}
+			drain();
+			channel.force(true);
+		}
+
+		/**
+		 * Writes a range of characters.
+		 *
+		 * @param chars The characters.
+		 * @param start The offset of the range.
+		 * @param end   The offset after the range.
+		 * @throws IOException If a character can't be encoded or the file can't
+		 *                     be written.
+		 */
+		private void write(final CharSequence chars, final int start, final int end) throws IOException {
+			if (start >= end) {
+				return;
+			}
+			var from = start;
+			if (carry.position() > 0) {
+				carry.put(chars.charAt(from++));
+				carry.flip();
+				final var pending = CharBuffer.wrap(carry.toString());
+				carry.clear();
+				encode(pending, false);
+			}
+			final CharBuffer in;
+			if (chars instanceof final CharBuffer charBuffer) {
+				in = charBuffer.duplicate().limit(end).position(from);
+			} else {
+				in = CharBuffer.wrap(chars, from, end);
+			}
+			encode(in, false);
+		}
+	}
+
+	/** Size of the buffer of the encoded bytes. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The number of decoded characters up to which a file is read whole for a
+	 * regular expression.
+	 */
+	private static final int MAX_REGEX_CHARS = 1 << 24;
+
+	/**
+	 * Replaces all occurrences in a file or counts them.<br>
+	 * A literal search runs chunk by chunk, the text before the end of a chunk
+	 * which may still hold the start of an occurrence is written and dropped. A
+	 * regular expression has no longest occurrence, so the file is read whole,
+	 * but only up to {@link #MAX_REGEX_CHARS} decoded characters.
+	 *
+	 * @param path          The path of the file.
+	 * @param search        The search.
+	 * @param replaceString The replacement, which may refer to groups.
+	 * @param charset       The character encoding of the file if it is ASCII
+	 *                      only, the encoding of other files is detected.
+	 * @param journal       Keeps the original file or null for a dry run.
+	 * @return Return the number of occurrences.
+	 * @throws IOException If the file can't be read, decoded or written, or is
+	 *                     too large for a regular expression.
+	 */
+	static int replace(final Path path, final Search search, final String replaceString, final Charset charset,
+			final ReplaceJournal journal) throws IOException {
+		final var file = FileText.open(path, charset);
+		if (file == null) {
+			return 0;
+		}
+		Path temp = null;
+		Output output = null;
+		var count = 0;
+		try (file) {
+			final var maxLength = search.maxLength();
+			if (maxLength < 0 && !file.readAll(MAX_REGEX_CHARS)) {
+				throw new IOException("File is too large for a regular expression: " + path); //$NON-NLS-1$
+			}
+			final var overlap = Math.max(maxLength - 1, 0);
+			if (journal != null) {
+				temp = Files.createTempFile(path.toAbsolutePath().getParent(), ".swtextedit", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+				output = new Output(temp, file.getEncoding());
+			}
+			var position = 0;
+			var end = 0;
+			for (;;) {
+				final var chars = file.chars();
+				final var limit = file.isEnd() ? chars.length() + 1 : chars.length() - overlap;
+				while (position < limit) {
+					final var start = search.indexOf(chars, position, limit);
+					if (start < 0) {
+						break;
+					}
+					final var matchEnd = search.end();
+					if (output != null) {
+						final var replacement = search.expand(replaceString);
+						output.write(chars, end, start);
+						output.write(replacement, 0, replacement.length());
+					}
+					count++;
+					end = matchEnd;
+					position = matchEnd > start ? matchEnd : matchEnd + 1;
+				}
+				if (file.isEnd()) {
+					if (output != null) {
+						output.write(chars, end, chars.length());
+					}
+					break;
+				}
+				final var drop = Math.max(end, limit);
+				if (output != null) {
+					output.write(chars, end, drop);
+				}
+				final var shift = file.next(chars.length() - drop);
+				position = Math.max(position, limit) - shift;
+				end = drop - shift;
+			}
+			if (output != null && count > 0) {
+				output.finish();
+				output.close();
+				output = null;
+				try {
+					Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(path));
+				} catch (final UnsupportedOperationException e) {
+					// the file system has no POSIX permissions
+				}
+				journal.record(path);
+				ReplaceJournal.move(temp, path);
+				temp = null;
+			}
+		} finally {
+			if (output != null) {
+				output.close();
+			}
+			if (temp != null) {
+				Files.deleteIfExists(temp);
+			}
+		}
+		return count;
+	}
+
+	/** The display of the UI thread. */
+	private final Display display;
+
+	/** True if the running replace was cancelled. */
+	private AtomicBoolean cancelled = new AtomicBoolean();
+
+	/** The running replace or null. */
+	private Thread worker;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param display The display of the UI thread.
+	 */
+	public FileReplace(final Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Cancels the running replace. The files which are replaced already stay
+	 * replaced and the listener is still called.
+	 */
+	public void cancel() {
+		cancelled.set(true);
+	}
+
+	/**
+	 * @return Return true while a replace is running.
+	 */
+	public boolean isRunning() {
+		return worker != null;
+	}
+
+	/**
+	 * Starts to replace all occurrences in the files.
+	 *
+	 * @param files         The files.
+	 * @param searches      Creates a new search for every file.
+	 * @param replaceString The replacement, which may refer to groups.
+	 * @param charset       The character encoding of files which are ASCII
+	 *                      only, the encoding of other files is detected.
+	 * @param journal       Keeps the original files or null for a dry run.
+	 * @param listener      Receives the result.
+	 */
+	public void start(final List<Path> files, final Supplier<Search> searches, final String replaceString,
+			final Charset charset, final ReplaceJournal journal, final Listener listener) {
+		final var isCancelled = new AtomicBoolean();
+		cancelled = isCancelled;
+		worker = Thread.ofVirtual().start(() -> {
+			final var counts = new ConcurrentHashMap<String, Integer>();
+			final var failed = new AtomicInteger();
+			final var permits = new Semaphore(FileSearch.PARALLELISM);
+			try {
+				for (final var path : files) {
+					if (isCancelled.get()) {
+						break;
+					}
+					permits.acquire();
+					Thread.ofVirtual().start(() -> {
+						try {
+							final var count = replace(path, searches.get(), replaceString, charset, journal);
+							if (count > 0) {
+								counts.put(path.toString(), count);
+							}
+						} catch (final IOException | CancellationException e) {
+							e.printStackTrace();
+							failed.incrementAndGet();
+						} finally {
+							permits.release();
+						}
+					});
+				}
+				permits.acquire(FileSearch.PARALLELISM);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (display.isDisposed()) {
+				return;
+			}
+			try {
+				display.asyncExec(() -> {
+					worker = null;
+					listener.finished(new TreeMap<>(counts), failed.get(), isCancelled.get());
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+}
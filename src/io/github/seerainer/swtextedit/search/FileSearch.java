@@ -0,0 +1,436 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+import io.github.seerainer.swtextedit.config.FileEncoding;
+
+/**
+ * Searches all files of a directory tree.<br>
+ * The tree is walked on a virtual thread, every file is searched on its own
+ * virtual thread and only a few files are searched at the same time. Every
+ * file is read chunk by chunk as {@link FileText}, so only a window of its
+ * characters is in memory. The offsets and lines of the occurrences are the
+ * ones of the opened file. The occurrences are handed to the UI thread in
+ * batches.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class FileSearch {
+
+	/**
+	 * Receives the results of a search on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called if the search finished or was stopped at the maximum number of
+		 * occurrences.
+		 *
+		 * @param files   The number of searched files.
+		 * @param limited True if the search was stopped.
+		 */
+		void finished(int files, boolean limited);
+
+		/**
+		 * Called with the occurrences found since the last call.
+		 *
+		 * @param matches The new occurrences, may be empty.
+		 * @param files   The number of searched files.
+		 */
+		void found(List<FileMatch> matches, int files);
+	}
+
+	/**
+	 * The state of one search.
+	 */
+	private final class Run {
+
+		/** The number of the search. */
+		private final int current;
+
+		/** Creates a new search for every file. */
+		private final Supplier<Search> searches;
+
+		/** The character encoding of files which are ASCII only. */
+		private final Charset charset;
+
+		/** Receives the results. */
+		private final Listener listener;
+
+		/** True if the search was cancelled. */
+		private final AtomicBoolean cancelled = new AtomicBoolean();
+
+		/** The number of occurrences. */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/** The number of searched files. */
+		private final AtomicInteger files = new AtomicInteger();
+
+		/** The occurrences which are not reported yet. */
+		private final ConcurrentLinkedQueue<FileMatch> pending = new ConcurrentLinkedQueue<>();
+
+		/** True if a report is queued on the UI thread. */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/** True if the search was stopped at the maximum number of occurrences. */
+		private volatile boolean limited;
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param current  The number of the search.
+		 * @param searches Creates a new search for every file.
+		 * @param charset  The character encoding of files which are ASCII only.
+		 * @param listener Receives the results.
+		 */
+		private Run(final int current, final Supplier<Search> searches, final Charset charset,
+				final Listener listener) {
+			this.current = current;
+			this.searches = searches;
+			this.charset = charset;
+			this.listener = listener;
+		}
+
+		/**
+		 * Adds an occurrence of the file which is searched.
+		 *
+		 * @param found The occurrences of the file.
+		 * @param match The occurrence.
+		 * @return Return false if the maximum number of occurrences is reached.
+		 */
+		private boolean add(final List<FileMatch> found, final FileMatch match) {
+			if (count.incrementAndGet() > MAX_MATCHES) {
+				limited = true;
+				cancelled.set(true);
+				return false;
+			}
+			found.add(match);
+			return true;
+		}
+
+		/**
+		 * Drops the occurrences of a file which is searched again.
+		 *
+		 * @param found The occurrences of the file.
+		 */
+		private void drop(final List<FileMatch> found) {
+			count.addAndGet(-found.size());
+			found.clear();
+		}
+
+		/**
+		 * Reports the occurrences since the last report, called on the UI thread.
+		 */
+		private void flush() {
+			scheduled.set(false);
+			final var matches = new ArrayList<FileMatch>();
+			for (var match = pending.poll(); match != null; match = pending.poll()) {
+				matches.add(match);
+			}
+			if (current == generation) {
+				listener.found(matches, files.get());
+			}
+		}
+
+		/**
+		 * Queues a report on the UI thread, unless one is queued already.
+		 */
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				execute(this::flush);
+			}
+		}
+	}
+
+	/** The number of files which are searched at the same time. */
+	static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	/** The search stops after this number of occurrences. */
+	private static final int MAX_MATCHES = 100_000;
+
+	/** The maximum number of characters before and after an occurrence. */
+	private static final int PREVIEW = 100;
+
+	/**
+	 * The largest length of an occurrence of a regular expression which is found
+	 * across two chunks.
+	 */
+	private static final int MAX_OVERLAP = 1 << 16;
+
+	/** The encoding of files which aren't valid in their detected encoding. */
+	private static final FileEncoding LATIN1 = new FileEncoding(StandardCharsets.ISO_8859_1, false);
+
+	/**
+	 * @param c The character.
+	 * @return Return true if the character ends a line.
+	 */
+	private static boolean isDelimiter(final char c) {
+		return c == '\n' || c == '\r';
+	}
+
+	/**
+	 * @param chars The text of the file.
+	 * @param start The offset of the occurrence.
+	 * @param end   The offset after the occurrence.
+	 * @return Return the text of the line around the occurrence.
+	 */
+	private static String preview(final CharSequence chars, final int start, final int end) {
+		var from = start;
+		while (from > 0 && start - from < PREVIEW && !isDelimiter(chars.charAt(from - 1))) {
+			from--;
+		}
+		var to = Math.max(start, end);
+		while (to < chars.length() && to - end < PREVIEW && !isDelimiter(chars.charAt(to))) {
+			to++;
+		}
+		return chars.subSequence(from, to).toString().strip();
+	}
+
+	/** The display of the UI thread. */
+	private final Display display;
+
+	/** The running search or null. */
+	private Run run;
+
+	/** The thread which walks the tree or null. */
+	private Thread worker;
+
+	/** The number of the current search, changed only by the UI thread. */
+	private volatile int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param display The display of the UI thread.
+	 */
+	public FileSearch(final Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Cancels the running search.
+	 */
+	public void cancel() {
+		generation++;
+		if (run != null) {
+			run.cancelled.set(true);
+			run = null;
+		}
+		if (worker != null) {
+			worker.interrupt();
+			worker = null;
+		}
+	}
+
+	/**
+	 * @return Return true while a search is running.
+	 */
+	public boolean isRunning() {
+		return run != null;
+	}
+
+	/**
+	 * Runs code on the UI thread.
+	 *
+	 * @param runnable The code to run.
+	 */
+	private void execute(final Runnable runnable) {
+		if (display.isDisposed()) {
+			return;
+		}
+		try {
+			display.asyncExec(runnable);
+		} catch (final SWTException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Searches a file. A file which isn't valid in its detected encoding is
+	 * searched again as ISO-8859-1, like it is opened then.
+	 *
+	 * @param state The search.
+	 * @param path  The path of the file.
+	 */
+	private static void search(final Run state, final Path path) {
+		final var found = new ArrayList<FileMatch>();
+		try {
+			try {
+				search(state, path, FileText.open(path, state.charset), found);
+			} catch (final CharacterCodingException e) {
+				state.drop(found);
+				search(state, path, FileText.open(path, state.charset, LATIN1), found);
+			}
+		} catch (final IOException | CancellationException e) {
+			e.printStackTrace();
+		}
+		state.pending.addAll(found);
+		state.files.incrementAndGet();
+		state.schedule();
+	}
+
+	/**
+	 * Searches the text of a file chunk by chunk. The end of a chunk is kept in
+	 * front of the next one, so an occurrence which starts in a chunk may end in
+	 * the next one.
+	 *
+	 * @param state The search.
+	 * @param path  The path of the file.
+	 * @param file  The text of the file or null if the file is binary.
+	 * @param found Receives the occurrences of the file.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	private static void search(final Run state, final Path path, final FileText file,
+			final List<FileMatch> found) throws IOException {
+		if (file == null) {
+			return;
+		}
+		try (file) {
+			final var search = state.searches.get();
+			final var maxLength = search.maxLength();
+			final var overlap = maxLength < 0 ? MAX_OVERLAP : maxLength - 1;
+			final var name = path.toString();
+			var position = 0;
+			while (!state.cancelled.get()) {
+				final var chars = file.chars();
+				final var limit = file.isEnd() ? chars.length() + 1 : chars.length() - overlap;
+				while (position < limit && !state.cancelled.get()) {
+					final var start = search.indexOf(chars, position, limit);
+					if (start < 0) {
+						break;
+					}
+					final var end = search.end();
+					final var offset = file.offset();
+					if (!state.add(found, new FileMatch(name, (int) (offset + start), (int) (offset + end),
+							file.line(start), preview(chars, start, end)))) {
+						return;
+					}
+					position = end > start ? end : end + 1;
+				}
+				if (file.isEnd()) {
+					return;
+				}
+				position = Math.max(position, limit) - file.next(overlap + 1);
+			}
+		}
+	}
+
+	/**
+	 * Starts to search all files of a directory tree and cancels the running
+	 * search. Hidden directories are skipped.
+	 *
+	 * @param root     The directory to search in.
+	 * @param searches Creates a new search for every file.
+	 * @param charset  The character encoding of files which are ASCII only, the
+	 *                 encoding of the other files is detected.
+	 * @param listener Receives the results.
+	 */
+	public void start(final Path root, final Supplier<Search> searches, final Charset charset,
+			final Listener listener) {
+		cancel();
+		final var state = new Run(generation, searches, charset, listener);
+		run = state;
+		worker = Thread.ofVirtual().start(() -> {
+			final var permits = new Semaphore(PARALLELISM);
+			try {
+				Files.walkFileTree(root, new SimpleFileVisitor<>() {
+
+					@Override
+					public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+						if (state.cancelled.get()) {
+							return FileVisitResult.TERMINATE;
+						}
+						final var name = dir.getFileName();
+						return !dir.equals(root) && name != null && name.toString().startsWith(".") //$NON-NLS-1$
+								? FileVisitResult.SKIP_SUBTREE
+								: FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+						if (state.cancelled.get()) {
+							return FileVisitResult.TERMINATE;
+						}
+						if (attrs.isRegularFile()) {
+							try {
+								permits.acquire();
+							} catch (final InterruptedException e) {
+								Thread.currentThread().interrupt();
+								return FileVisitResult.TERMINATE;
+							}
+							Thread.ofVirtual().start(() -> {
+								try {
+									search(state, file);
+								} finally {
+									permits.release();
+								}
+							});
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+						return FileVisitResult.CONTINUE;
+					}
+				});
+				permits.acquire(PARALLELISM);
+			} catch (final IOException e) {
+				e.printStackTrace();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			execute(() -> {
+				state.flush();
+				if (state.current == generation) {
+					run = null;
+					worker = null;
+					listener.finished(state.files.get(), state.limited);
+				}
+			});
+		});
+	}
+}
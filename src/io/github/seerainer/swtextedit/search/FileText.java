@@ -0,0 +1,410 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.eclipse.swt.SWT;
+
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.io.CharsetDetector;
+
+/**
+ * The text of a file for the search in files, which is read chunk by
+ * chunk.<br>
+ * The encoding is detected and the byte order mark is skipped like when the
+ * file is opened, so the offsets are the ones of the opened file. Only a
+ * window of decoded characters is on the heap, its end can be kept for the
+ * next chunk. Large files of single-byte and ASCII text are mapped and read in
+ * one window without decoding. Bytes which are not valid in the encoding fail
+ * the reading.
+ *
+ * @author philipp@seerainer.com
+ */
+final class FileText implements Closeable {
+
+	/**
+	 * A view of bytes as ISO-8859-1 characters.
+	 */
+	private static final class ByteChars implements CharSequence {
+
+		/** The bytes of the text. */
+		private final ByteBuffer bytes;
+
+		/** The offset of the view in the bytes. */
+		private final int offset;
+
+		/** The amount of characters of the view. */
+		private final int length;
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param bytes  The bytes of the text.
+		 * @param offset The offset of the view in the bytes.
+		 * @param length The amount of characters of the view.
+		 */
+		private ByteChars(final ByteBuffer bytes, final int offset, final int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return (char) (bytes.get(offset + index) & 0xFF);
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return new ByteChars(bytes, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			final var chars = new char[length];
+			for (var i = 0; i < length; i++) {
+				chars[i] = charAt(i);
+			}
+			return new String(chars);
+		}
+	}
+
+	/** The number of characters which are decoded at least for a chunk. */
+	static final int CHUNK_SIZE = 1 << 18;
+
+	/** Files of at least this size are mapped instead of read. */
+	private static final long MAP_THRESHOLD = 1 << 16;
+
+	/** Number of bytes which are checked for a binary file. */
+	private static final int PROBE = 1 << 13;
+
+	/** The size of the buffer of the read bytes. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * @param bytes The bytes of the file.
+	 * @return Return true if all bytes are 7-bit ASCII.
+	 */
+	private static boolean isAscii(final ByteBuffer bytes) {
+		final var limit = bytes.limit();
+		var i = 0;
+		for (; i + 8 <= limit; i += 8) {
+			if ((bytes.getLong(i) & 0x8080808080808080L) != 0) {
+				return false;
+			}
+		}
+		for (; i < limit; i++) {
+			if (bytes.get(i) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param channel The channel of the file.
+	 * @param charset The character encoding of the file.
+	 * @return Return true if the start of the file contains a null byte, which is
+	 *         not part of a character of the encoding.
+	 * @throws IOException If the file can't be read.
+	 */
+	private static boolean isBinary(final FileChannel channel, final Charset charset) throws IOException {
+		final var name = charset.name();
+		if (name.startsWith("UTF-16") || name.startsWith("UTF-32")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+		final var head = ByteBuffer.allocate((int) Math.min(channel.size(), PROBE));
+		while (head.hasRemaining() && channel.read(head, head.position()) >= 0) {
+			// read until the probe is full
+		}
+		final var limit = head.position();
+		for (var i = 0; i < limit; i++) {
+			if (head.get(i) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Opens a file and detects its encoding.
+	 *
+	 * @param path     The path of the file.
+	 * @param fallback The encoding of files which are ASCII only.
+	 * @return Return the text with the first chunk or null if the file is binary
+	 *         or too large.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	static FileText open(final Path path, final Charset fallback) throws IOException {
+		return open(path, fallback, null);
+	}
+
+	/**
+	 * Opens a file.
+	 *
+	 * @param path     The path of the file.
+	 * @param fallback The encoding of files which are ASCII only, if the encoding
+	 *                 is detected.
+	 * @param encoding The encoding of the file or null to detect it.
+	 * @return Return the text with the first chunk or null if the file is binary
+	 *         or too large.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	static FileText open(final Path path, final Charset fallback, final FileEncoding encoding) throws IOException {
+		final var channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			final var size = channel.size();
+			final var detected = encoding != null ? encoding : CharsetDetector.detect(channel, fallback);
+			if (size > Integer.MAX_VALUE || isBinary(channel, detected.getCharset())) {
+				channel.close();
+				return null;
+			}
+			final var text = new FileText(channel, detected);
+			if (!text.map()) {
+				text.next(0);
+			}
+			return text;
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** The channel of the file. */
+	private final FileChannel channel;
+
+	/** The detected encoding of the file. */
+	private final FileEncoding encoding;
+
+	/** The decoder of the file, which fails on invalid bytes. */
+	private final CharsetDecoder decoder;
+
+	/** The read bytes which are not decoded yet. */
+	private ByteBuffer bytes;
+
+	/** The decoded characters of the window. */
+	private char[] chars;
+
+	/** The characters of the window. */
+	private CharSequence window;
+
+	/** The number of characters in the window. */
+	private int length;
+
+	/** The offset of the window in the text. */
+	private long offset;
+
+	/** True if all bytes of the file were read. */
+	private boolean eof;
+
+	/** True if the window holds the end of the text. */
+	private boolean end;
+
+	/** The number of the line at the counted offset, beginning with 1. */
+	private int line = 1;
+
+	/** The offset in the window up to which the lines are counted. */
+	private int counted;
+
+	/** The character before the counted offset. */
+	private char last;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param channel  The channel of the file.
+	 * @param encoding The encoding of the file.
+	 * @throws IOException If the file can't be read.
+	 */
+	private FileText(final FileChannel channel, final FileEncoding encoding) throws IOException {
+		final var charset = encoding.getCharset();
+		final var skip = encoding.getBom().length;
+		this.channel = channel;
+		this.encoding = encoding;
+		this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		this.chars = new char[(int) Math.min(CHUNK_SIZE, channel.size() - skip + 1)];
+		channel.position(skip);
+	}
+
+	/**
+	 * @return Return the characters of the window, which are valid until the
+	 *         next chunk is read.
+	 */
+	CharSequence chars() {
+		return window;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * @return Return the encoding of the file.
+	 */
+	FileEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * @return Return true if the window holds the end of the text.
+	 */
+	boolean isEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns the line of an offset in the window, the offsets must be given in
+	 * ascending order. Like in the text widget \r, \n and \r\n end a line.
+	 *
+	 * @param index The offset in the window.
+	 * @return Return the number of the line, beginning with 1.
+	 */
+	int line(final int index) {
+		for (; counted < index; counted++) {
+			final var c = window.charAt(counted);
+			if (c == '\r' || c == '\n' && last != '\r') {
+				line++;
+			}
+			last = c;
+		}
+		return line;
+	}
+
+	/**
+	 * Maps the whole file as window, if it is large and every byte is one
+	 * character of the encoding.
+	 *
+	 * @return Return true if the file is mapped.
+	 * @throws IOException If the file can't be mapped.
+	 */
+	private boolean map() throws IOException {
+		final var charset = encoding.getCharset();
+		final var skip = encoding.getBom().length;
+		final var size = channel.size() - skip;
+		final var latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+		if (size < MAP_THRESHOLD || "win32".equals(SWT.getPlatform()) //$NON-NLS-1$
+				|| !latin1 && !StandardCharsets.US_ASCII.equals(charset) && !StandardCharsets.UTF_8.equals(charset)) {
+			return false;
+		}
+		final var mapped = channel.map(MapMode.READ_ONLY, skip, size);
+		if (!latin1 && !isAscii(mapped)) {
+			return false;
+		}
+		chars = null;
+		window = new ByteChars(mapped, 0, (int) size);
+		length = (int) size;
+		eof = true;
+		end = true;
+		return true;
+	}
+
+	/**
+	 * Decodes the next chunk into the window. Only the end of the window is
+	 * kept in front of the chunk.
+	 *
+	 * @param keep The number of characters at the end of the window which are
+	 *             kept.
+	 * @return Return the number of characters which were dropped from the start
+	 *         of the window.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	int next(final int keep) throws IOException {
+		final var kept = Math.min(Math.max(keep, 0), length);
+		final var shift = length - kept;
+		line(shift);
+		counted -= shift;
+		System.arraycopy(chars, shift, chars, 0, kept);
+		if (chars.length - kept < CHUNK_SIZE) {
+			chars = Arrays.copyOf(chars, Math.max(chars.length << 1, kept + CHUNK_SIZE));
+		}
+		if (bytes == null) {
+			bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+		offset += shift;
+		final var out = CharBuffer.wrap(chars, kept, chars.length - kept);
+		while (out.hasRemaining() && !end) {
+			if (!eof && channel.read(bytes) < 0) {
+				eof = true;
+			}
+			bytes.flip();
+			final var result = decoder.decode(bytes, out, eof);
+			bytes.compact();
+			if (result.isError()) {
+				result.throwException();
+			}
+			if (result.isOverflow()) {
+				break;
+			}
+			if (eof && decoder.flush(out).isUnderflow()) {
+				end = true;
+			}
+		}
+		length = out.position();
+		window = CharBuffer.wrap(chars, 0, length);
+		return shift;
+	}
+
+	/**
+	 * @return Return the offset of the window in the text.
+	 */
+	long offset() {
+		return offset;
+	}
+
+	/**
+	 * Reads the rest of the file into the window. A mapped file is in the window
+	 * already and has no limit.
+	 *
+	 * @param max The largest number of decoded characters.
+	 * @return Return false if the text has more characters.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	boolean readAll(final int max) throws IOException {
+		while (!end) {
+			if (length > max) {
+				return false;
+			}
+			next(length);
+		}
+		return length <= max || chars == null;
+	}
+}
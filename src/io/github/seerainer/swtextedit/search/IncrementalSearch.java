@@ -0,0 +1,145 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.concurrent.CancellationException;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
+/**
+ * Searches on a virtual thread while the search text is typed.<br>
+ * Every new search interrupts the previous one. The result is handed to the UI
+ * thread with {@link Display#asyncExec(Runnable)}, results of cancelled
+ * searches are dropped.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class IncrementalSearch {
+
+	/**
+	 * Receives the result of a search on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called if the search failed.
+		 *
+		 * @param e The exception of the search.
+		 */
+		void failed(RuntimeException e);
+
+		/**
+		 * Called if the search finished.
+		 *
+		 * @param start The offset of the occurrence or -1.
+		 * @param end   The offset after the occurrence.
+		 */
+		void found(int start, int end);
+	}
+
+	/** The display of the UI thread. */
+	private final Display display;
+
+	/** The running search or null. */
+	private Thread worker;
+
+	/** The number of the current search, changed only by the UI thread. */
+	private int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param display The display of the UI thread.
+	 */
+	public IncrementalSearch(final Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Cancels the running search.
+	 */
+	public void cancel() {
+		generation++;
+		if (worker != null) {
+			worker.interrupt();
+			worker = null;
+		}
+	}
+
+	/**
+	 * Reports the result of a search to the UI thread.
+	 *
+	 * @param current  The number of the search.
+	 * @param runnable The code which reports the result.
+	 */
+	private void report(final int current, final Runnable runnable) {
+		if (display.isDisposed()) {
+			return;
+		}
+		try {
+			display.asyncExec(() -> {
+				if (current == generation) {
+					worker = null;
+					runnable.run();
+				}
+			});
+		} catch (final SWTException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Starts a new search and cancels the running one. An occurrence at or after
+	 * the offset is preferred for a forward search, one at or before it for a
+	 * backward search, the search continues at the other end of the text.
+	 *
+	 * @param search   The search to run.
+	 * @param snapshot The text to search in.
+	 * @param from     The offset to start the search from.
+	 * @param forward  True for a forward search.
+	 * @param listener Receives the result.
+	 */
+	public void start(final Search search, final Snapshot snapshot, final int from, final boolean forward,
+			final Listener listener) {
+		cancel();
+		final var current = generation;
+		worker = Thread.ofVirtual().start(() -> {
+			final var text = new TimedCharSequence(snapshot, 0);
+			try {
+				var start = forward ? search.indexOf(text, from) : search.lastIndexOf(text, from);
+				if (start < 0) {
+					start = forward ? search.indexOf(text, 0) : search.lastIndexOf(text, text.length());
+				}
+				final var found = start;
+				final var end = start < 0 ? -1 : search.end();
+				report(current, () -> listener.found(found, end));
+			} catch (final CancellationException e) {
+				if (!Thread.currentThread().isInterrupted()) {
+					report(current, () -> listener.failed(e));
+				}
+			}
+		});
+	}
+}
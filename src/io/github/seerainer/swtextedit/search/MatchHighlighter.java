@@ -0,0 +1,172 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.events.PaintListener;
+
+import io.github.seerainer.swtextedit.text.TextContent;
+
+/**
+ * Highlights the occurrences of a search in the visible lines.<br>
+ * Only the painted lines are searched, the occurrences are cached per line and
+ * dropped for the lines from an edit on, including the line before it, whose
+ * occurrences may look ahead into the edited line. An occurrence which spans
+ * lines isn't highlighted, so painting never searches past the line. No style
+ * ranges are added to the text widget.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class MatchHighlighter implements PaintListener, TextChangeListener {
+
+	/** Number of characters of a line which are searched. */
+	private static final int MAX_LINE = 1 << 16;
+
+	/** Number of cached lines after which the cache is cleared. */
+	private static final int MAX_CACHE = 1 << 12;
+
+	/** Alpha value of the highlight. */
+	private static final int ALPHA = 96;
+
+	/** Empty occurrences of a line. */
+	private static final int[] NONE = {};
+
+	/** The occurrences by line, the start and end offsets follow each other. */
+	private final Map<Integer, int[]> cache = new HashMap<>();
+
+	/** The text widget. */
+	private final StyledText text;
+
+	/** The search or null if nothing is highlighted. */
+	private Search search;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text The text widget.
+	 */
+	public MatchHighlighter(final StyledText text) {
+		this.text = text;
+	}
+
+	/**
+	 * Searches the occurrences of a line.
+	 *
+	 * @param line The index of the line.
+	 * @return Return the start and end offsets of the occurrences.
+	 */
+	private int[] find(final int line) {
+		final var content = (TextContent) text.getContent();
+		final var snapshot = content.snapshot();
+		final var start = content.getOffsetAtLine(line);
+		final var end = Math.min(line + 1 < content.getLineCount() ? content.getOffsetAtLine(line + 1)
+				: content.getCharCount(), start + MAX_LINE);
+		var found = NONE;
+		var size = 0;
+		try {
+			for (var position = start; position < end;) {
+				final var match = search.indexOfWithin(snapshot, position, end);
+				if (match < 0) {
+					break;
+				}
+				final var matchEnd = search.end();
+				if (matchEnd > match) {
+					if (size == found.length) {
+						found = Arrays.copyOf(found, Math.max(8, size << 1));
+					}
+					found[size++] = match;
+					found[size++] = matchEnd;
+				}
+				position = matchEnd > match ? matchEnd : matchEnd + 1;
+			}
+		} catch (final CancellationException e) {
+			e.printStackTrace();
+		}
+		return size == found.length ? found : Arrays.copyOf(found, size);
+	}
+
+	@Override
+	public void paintControl(final PaintEvent e) {
+		if (search == null || text.getCharCount() == 0) {
+			return;
+		}
+		if (cache.size() > MAX_CACHE) {
+			cache.clear();
+		}
+		final var first = text.getLineIndex(e.y);
+		final var last = text.getLineIndex(e.y + e.height);
+		final var gc = e.gc;
+		final var alpha = gc.getAlpha();
+		gc.setAlpha(ALPHA);
+		gc.setBackground(text.getDisplay().getSystemColor(SWT.COLOR_YELLOW));
+		for (var line = first; line <= last; line++) {
+			final var found = cache.computeIfAbsent(line, this::find);
+			for (var i = 0; i < found.length; i += 2) {
+				final var bounds = text.getTextBounds(found[i], found[i + 1] - 1);
+				gc.fillRectangle(bounds);
+			}
+		}
+		gc.setAlpha(alpha);
+	}
+
+	/**
+	 * Highlights the occurrences of a search.
+	 *
+	 * @param newSearch The search or null to remove the highlight.
+	 */
+	public void setSearch(final Search newSearch) {
+		search = newSearch;
+		cache.clear();
+		if (!text.isDisposed()) {
+			text.redraw();
+		}
+	}
+
+	@Override
+	public void textChanged(final TextChangedEvent event) {
+		// the lines are dropped before the change
+	}
+
+	@Override
+	public void textChanging(final TextChangingEvent event) {
+		if (cache.isEmpty()) {
+			return;
+		}
+		final var line = text.getContent().getLineAtOffset(event.start) - 1;
+		cache.keySet().removeIf(key -> key >= line);
+	}
+
+	@Override
+	public void textSet(final TextChangedEvent event) {
+		cache.clear();
+	}
+}
@@ -0,0 +1,376 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
+/**
+ * Finds all occurrences of a search in parallel.<br>
+ * The text is split into chunks, which are searched on the common
+ * {@link ForkJoinPool}. Each chunk reports the occurrences which start inside
+ * of it. Joining two chunks continues the search of the first one into the
+ * second one until both agree, so the result is the same as the one of a
+ * search from the start to the end of the text. The occurrences of the second
+ * chunk which the join replaces aren't counted anymore. The search stops after
+ * {@link #MAX_MATCHES} occurrences, so a short search text in a large text
+ * doesn't fill the heap with offsets. The tasks read the text through a
+ * {@link TimedCharSequence} with the flag of the search, because the threads
+ * of the pool aren't interrupted by a cancel.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class ParallelSearch {
+
+	/**
+	 * Receives the result of a search on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called if the search finished.
+		 *
+		 * @param starts  The sorted offsets of the occurrences, or null if the
+		 *                search failed or found too many occurrences.
+		 * @param limited True if the search stopped after
+		 *                {@link ParallelSearch#MAX_MATCHES} occurrences.
+		 */
+		void found(int[] starts, boolean limited);
+	}
+
+	/**
+	 * The occurrences of a range of the text.
+	 */
+	private static final class Result {
+
+		/** The offsets of the occurrences. */
+		private int[] starts = new int[16];
+
+		/** The offsets after the occurrences. */
+		private int[] ends = new int[16];
+
+		/** The number of occurrences. */
+		private int size;
+
+		/**
+		 * Adds an occurrence.
+		 *
+		 * @param start The offset of the occurrence.
+		 * @param end   The offset after the occurrence.
+		 */
+		private void add(final int start, final int end) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size << 1);
+				ends = Arrays.copyOf(ends, size << 1);
+			}
+			starts[size] = start;
+			ends[size++] = end;
+		}
+
+		/**
+		 * Adds occurrences of another result.
+		 *
+		 * @param other The other result.
+		 * @param from  The index of the first occurrence to add.
+		 */
+		private void addAll(final Result other, final int from) {
+			for (var i = from; i < other.size; i++) {
+				add(other.starts[i], other.ends[i]);
+			}
+		}
+	}
+
+	/**
+	 * Searches a range of the text, large ranges are split in two.
+	 */
+	private static final class Task extends RecursiveTask<Result> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Creates the searches of the tasks. */
+		private final transient Supplier<Search> searches;
+
+		/** True if the search was cancelled. */
+		private final AtomicBoolean cancelled;
+
+		/** True if the search found too many occurrences. */
+		private final AtomicBoolean limited;
+
+		/** The number of found occurrences of all tasks. */
+		private final AtomicInteger count;
+
+		/** The text to search in. */
+		private final transient Snapshot snapshot;
+
+		/** The offset of the range. */
+		private final int from;
+
+		/** The offset after the range, an empty occurrence may end the text. */
+		private final int to;
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param searches  Creates the searches of the tasks.
+		 * @param cancelled True if the search was cancelled.
+		 * @param limited   True if the search found too many occurrences.
+		 * @param count     The number of found occurrences of all tasks.
+		 * @param snapshot  The text to search in.
+		 * @param from      The offset of the range.
+		 * @param to        The offset after the range.
+		 */
+		private Task(final Supplier<Search> searches, final AtomicBoolean cancelled, final AtomicBoolean limited,
+				final AtomicInteger count, final Snapshot snapshot, final int from, final int to) {
+			this.searches = searches;
+			this.cancelled = cancelled;
+			this.limited = limited;
+			this.count = count;
+			this.snapshot = snapshot;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Result compute() {
+			if (to - from <= CHUNK_SIZE) {
+				return search(from, to);
+			}
+			final var middle = (from + to) >>> 1;
+			final var left = new Task(searches, cancelled, limited, count, snapshot, from, middle);
+			left.fork();
+			final var right = new Task(searches, cancelled, limited, count, snapshot, middle, to).compute();
+			return combine(left.join(), right, middle, to);
+		}
+
+		/**
+		 * Adds an occurrence and stops all tasks after too many occurrences.
+		 *
+		 * @param result The occurrences of the range.
+		 * @param start  The offset of the occurrence.
+		 * @param end    The offset after the occurrence.
+		 */
+		private void add(final Result result, final int start, final int end) {
+			if (count.incrementAndGet() > MAX_MATCHES) {
+				limited.set(true);
+				cancelled.set(true);
+				throw new CancellationException();
+			}
+			result.add(start, end);
+		}
+
+		/**
+		 * Continues the search of the left range into the right range. The
+		 * occurrences of the right range which are replaced by the continued
+		 * search are subtracted from the count.
+		 *
+		 * @param left   The occurrences of the left range.
+		 * @param right  The occurrences of the right range.
+		 * @param middle The offset of the right range.
+		 * @param end    The offset after the right range.
+		 * @return Return the occurrences of both ranges.
+		 */
+		private Result combine(final Result left, final Result right, final int middle, final int end) {
+			if (left.size == 0) {
+				return right;
+			}
+			var position = next(left.starts[left.size - 1], left.ends[left.size - 1]);
+			if (position <= middle) {
+				left.addAll(right, 0);
+				return left;
+			}
+			final var search = searches.get();
+			final var text = text();
+			var i = 0;
+			while (true) {
+				final var start = search.indexOf(text, position, end);
+				while (i < right.size && (start < 0 || right.starts[i] < start)) {
+					i++;
+					count.decrementAndGet();
+				}
+				if (start < 0) {
+					return left;
+				}
+				if (i < right.size && right.starts[i] == start) {
+					if (right.ends[i] == search.end()) {
+						left.addAll(right, i);
+						return left;
+					}
+					i++;
+					count.decrementAndGet();
+				}
+				add(left, start, search.end());
+				position = next(start, search.end());
+			}
+		}
+
+		/**
+		 * Searches one chunk.
+		 *
+		 * @param start The offset of the chunk.
+		 * @param end   The offset after the chunk.
+		 * @return Return the occurrences which start in the chunk.
+		 */
+		private Result search(final int start, final int end) {
+			final var result = new Result();
+			final var search = searches.get();
+			final var text = text();
+			for (var position = start; position < end;) {
+				if (cancelled.get()) {
+					throw new CancellationException();
+				}
+				final var found = search.indexOf(text, position, end);
+				if (found < 0) {
+					break;
+				}
+				add(result, found, search.end());
+				position = next(found, search.end());
+			}
+			return result;
+		}
+
+		/**
+		 * @return Return a view of the text for the current thread, which stops
+		 *         the search if it was cancelled.
+		 */
+		private CharSequence text() {
+			return new TimedCharSequence(snapshot.subSequence(0, snapshot.length()), 0, cancelled);
+		}
+	}
+
+	/** Number of characters of a chunk. */
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	/** Maximum number of occurrences of a search. */
+	public static final int MAX_MATCHES = 100_000;
+
+	/**
+	 * Finds all occurrences.
+	 *
+	 * @param searches  Creates a new search for every task.
+	 * @param snapshot  The text to search in.
+	 * @param cancelled True if the search was cancelled.
+	 * @param limited   True if the search found too many occurrences.
+	 * @param count     Counts the found occurrences.
+	 * @return Return the sorted offsets of the occurrences.
+	 */
+	private static int[] findAll(final Supplier<Search> searches, final Snapshot snapshot,
+			final AtomicBoolean cancelled, final AtomicBoolean limited, final AtomicInteger count) {
+		final var result = ForkJoinPool.commonPool()
+				.invoke(new Task(searches, cancelled, limited, count, snapshot, 0, snapshot.length() + 1));
+		return Arrays.copyOf(result.starts, result.size);
+	}
+
+	/**
+	 * @param start The offset of an occurrence.
+	 * @param end   The offset after the occurrence.
+	 * @return Return the offset where the search for the next occurrence starts.
+	 */
+	private static int next(final int start, final int end) {
+		return end > start ? end : end + 1;
+	}
+
+	/** The display of the UI thread. */
+	private final Display display;
+
+	/** True if the running search was cancelled. */
+	private AtomicBoolean cancelled = new AtomicBoolean();
+
+	/** The running search or null. */
+	private Thread worker;
+
+	/** The number of the current search, changed only by the UI thread. */
+	private int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param display The display of the UI thread.
+	 */
+	public ParallelSearch(final Display display) {
+		this.display = display;
+	}
+
+	/**
+	 * Cancels the running search. The tasks on the pool stop when they read the
+	 * next few thousand characters.
+	 */
+	public void cancel() {
+		generation++;
+		cancelled.set(true);
+		if (worker != null) {
+			worker.interrupt();
+			worker = null;
+		}
+	}
+
+	/**
+	 * Starts to find all occurrences and cancels the running search.
+	 *
+	 * @param newSearches Creates a new search for every task.
+	 * @param snapshot    The text to search in.
+	 * @param listener    Receives the offsets of the occurrences.
+	 */
+	public void start(final Supplier<Search> newSearches, final Snapshot snapshot, final Listener listener) {
+		cancel();
+		final var current = generation;
+		final var isCancelled = new AtomicBoolean();
+		final var isLimited = new AtomicBoolean();
+		final var count = new AtomicInteger();
+		cancelled = isCancelled;
+		worker = Thread.ofVirtual().start(() -> {
+			int[] starts;
+			try {
+				starts = findAll(newSearches, snapshot, isCancelled, isLimited, count);
+			} catch (final CancellationException e) {
+				if (isCancelled.get() && !isLimited.get()) {
+					return;
+				}
+				starts = null;
+			}
+			if (display.isDisposed()) {
+				return;
+			}
+			final var found = starts;
+			final var limited = isLimited.get();
+			try {
+				display.asyncExec(() -> {
+					if (current == generation) {
+						worker = null;
+						listener.found(found, limited);
+					}
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+}
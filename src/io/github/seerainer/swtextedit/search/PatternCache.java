@@ -0,0 +1,63 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class which keeps the last compiled regular expressions.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class PatternCache {
+
+	/** Maximum number of cached patterns. */
+	private static final int SIZE = 32;
+
+	/** The patterns by flags and regular expression, the eldest first. */
+	private static final Map<String, Pattern> CACHE = new LinkedHashMap<>(SIZE, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Pattern> eldest) {
+			return size() > SIZE;
+		}
+	};
+
+	/**
+	 * Compiles a regular expression or returns the cached pattern.
+	 *
+	 * @param regex The regular expression.
+	 * @param flags The flags of {@link Pattern}.
+	 * @return Return the compiled pattern.
+	 */
+	public static synchronized Pattern compile(final String regex, final int flags) {
+		return CACHE.computeIfAbsent(flags + ":" + regex, k -> Pattern.compile(regex, flags)); //$NON-NLS-1$
+	}
+
+	/** Private empty constructor. */
+	private PatternCache() {
+	}
+}
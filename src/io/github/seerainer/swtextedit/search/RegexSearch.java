@@ -0,0 +1,241 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a regular expression.<br>
+ * The patterns come from the {@link PatternCache}. Every search reads the
+ * text through a {@link TimedCharSequence}, so an expression which backtracks
+ * too long is stopped with a
+ * {@link java.util.concurrent.CancellationException}. A search on the UI
+ * thread gets a fixed time, one on a background thread additional time per
+ * character of the searched range, so a task which searches one chunk of a
+ * large text isn't given the time of the whole text.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class RegexSearch implements Search {
+
+	/** Time in nanoseconds a search may take in any case, the whole time on the UI thread. */
+	private static final long TIMEOUT = 2_000_000_000L;
+
+	/** Additional time in nanoseconds a search on a background thread may take per character. */
+	private static final long TIMEOUT_PER_CHAR = 100L;
+
+	/** Number of characters of the first range of a backward search. */
+	private static final int WINDOW = 1 << 16;
+
+	/** The compiled regular expression. */
+	private final Pattern pattern;
+
+	/** True if the time of a search grows with the length of the searched range. */
+	private final boolean scaled;
+
+	/** The matcher of the occurrence which was found last. */
+	private Matcher last;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param regex      The regular expression.
+	 * @param ignoreCase True to ignore the case.
+	 * @param scaled     True for a background thread, the time of a search grows
+	 *                   with the length of the searched range.
+	 */
+	public RegexSearch(final String regex, final boolean ignoreCase, final boolean scaled) {
+		this.scaled = scaled;
+		this.pattern = PatternCache.compile(regex,
+				Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+	}
+
+	@Override
+	public int end() {
+		return last.end();
+	}
+
+	@Override
+	public String expand(final String replaceString) {
+		final var length = replaceString.length();
+		final var builder = new StringBuilder(length);
+		for (var i = 0; i < length; i++) {
+			var c = replaceString.charAt(i);
+			if (c == '\\') {
+				if (++i == length) {
+					throw new IllegalArgumentException("Character to be escaped is missing"); //$NON-NLS-1$
+				}
+				builder.append(replaceString.charAt(i));
+			} else if (c == '$') {
+				if (++i == length) {
+					throw new IllegalArgumentException("Group index is missing"); //$NON-NLS-1$
+				}
+				c = replaceString.charAt(i);
+				final String group;
+				if (c == '{') {
+					final var close = replaceString.indexOf('}', i);
+					if (close < 0) {
+						throw new IllegalArgumentException("Named group is missing trailing '}'"); //$NON-NLS-1$
+					}
+					group = last.group(replaceString.substring(i + 1, close));
+					i = close;
+				} else {
+					if (c < '0' || c > '9') {
+						throw new IllegalArgumentException("Illegal group reference"); //$NON-NLS-1$
+					}
+					var number = c - '0';
+					while (i + 1 < length && Character.isDigit(replaceString.charAt(i + 1))) {
+						final var next = number * 10 + replaceString.charAt(i + 1) - '0';
+						if (next > last.groupCount()) {
+							break;
+						}
+						number = next;
+						i++;
+					}
+					if (number > last.groupCount()) {
+						throw new IllegalArgumentException("No group " + number); //$NON-NLS-1$
+					}
+					group = last.group(number);
+				}
+				if (group != null) {
+					builder.append(group);
+				}
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public int indexOf(final CharSequence text, final int from) {
+		if (from > text.length()) {
+			return -1;
+		}
+		final var matcher = matcher(text, text.length() - Math.max(from, 0));
+		if (matcher.find(Math.max(from, 0))) {
+			last = matcher;
+			return matcher.start();
+		}
+		return -1;
+	}
+
+	@Override
+	public int indexOf(final CharSequence text, final int from, final int to) {
+		final var length = text.length();
+		if (to > length) {
+			return indexOf(text, from);
+		}
+		final var start = Math.max(from, 0);
+		if (start >= to) {
+			return -1;
+		}
+		final var matcher = matcher(text, to - start);
+		matcher.region(start, to);
+		final var found = matcher.find();
+		if (!matcher.hitEnd()) {
+			if (found) {
+				last = matcher;
+				return matcher.start();
+			}
+			return -1;
+		}
+		// the end of the range cut the match short, search again without it
+		matcher.region(start, length);
+		if (matcher.find() && matcher.start() < to) {
+			last = matcher;
+			return matcher.start();
+		}
+		return -1;
+	}
+
+	@Override
+	public int indexOfWithin(final CharSequence text, final int from, final int to) {
+		final var start = Math.max(from, 0);
+		final var end = Math.min(to, text.length());
+		if (start >= end) {
+			return -1;
+		}
+		final var matcher = matcher(text, end - start);
+		matcher.region(start, end);
+		if (matcher.find()) {
+			last = matcher;
+			return matcher.start();
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(final CharSequence text, final int from) {
+		final var limit = Math.min(from, text.length());
+		if (limit < 0) {
+			return -1;
+		}
+		final var matcher = matcher(text, limit);
+		for (var window = (long) WINDOW;; window <<= 1) {
+			final var low = (int) Math.max(0, limit - window);
+			matcher.region(low, text.length());
+			var found = -1;
+			while (matcher.find() && matcher.start() <= limit) {
+				found = matcher.start();
+			}
+			if (found > -1) {
+				matcher.find(found);
+				last = matcher;
+				return found;
+			}
+			if (low == 0) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * @param text   The text to search in.
+	 * @param length The number of characters of the searched range.
+	 * @return Return a new matcher, which stops after the time for the range.
+	 */
+	private Matcher matcher(final CharSequence text, final int length) {
+		final var timeout = scaled ? TIMEOUT + length * TIMEOUT_PER_CHAR : TIMEOUT;
+		final var matcher = pattern.matcher(new TimedCharSequence(text, timeout));
+		matcher.useTransparentBounds(true);
+		matcher.useAnchoringBounds(false);
+		return matcher;
+	}
+
+	@Override
+	public boolean matches(final CharSequence text, final int start, final int end) {
+		final var matcher = matcher(text, end - start);
+		matcher.region(start, end);
+		if (matcher.matches()) {
+			last = matcher;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int maxLength() {
+		return -1;
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The journal of a replace in files, which keeps the original files until the
+ * replace is committed or rolled back.<br>
+ * Every original file is kept as hard link, or as copy where links are not
+ * supported, in a hidden directory next to the files. The journal file in the
+ * directory lists the backups and the original paths, so the files can also be
+ * restored by hand after a crash.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class ReplaceJournal {
+
+	/**
+	 * Moves a file and replaces the target, atomically if possible.
+	 *
+	 * @param source The file to move.
+	 * @param target The file to replace.
+	 * @throws IOException If the file can't be moved.
+	 */
+	static void move(final Path source, final Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (final AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/** The directory of the backups. */
+	private final Path directory;
+
+	/** The journal file. */
+	private final Path log;
+
+	/** The backups, followed by the original files. */
+	private final List<Path[]> entries = new ArrayList<>();
+
+	/**
+	 * Creates a new journal.
+	 *
+	 * @param root The directory in which the journal is created.
+	 * @throws IOException If the journal can't be created.
+	 */
+	public ReplaceJournal(final Path root) throws IOException {
+		this.directory = Files.createTempDirectory(root, ".swtextedit-journal"); //$NON-NLS-1$
+		this.log = directory.resolve("journal"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Commits the replace and deletes the backups.
+	 */
+	public synchronized void commit() {
+		try {
+			for (final var entry : entries) {
+				Files.deleteIfExists(entry[0]);
+			}
+			entries.clear();
+			Files.deleteIfExists(log);
+			Files.deleteIfExists(directory);
+		} catch (final IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return Return true if no file was replaced.
+	 */
+	public synchronized boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Keeps the original of a file before it is replaced. The journal file is
+	 * written to the disk before this method returns.
+	 *
+	 * @param file The file which will be replaced.
+	 * @throws IOException If the backup can't be created.
+	 */
+	synchronized void record(final Path file) throws IOException {
+		final var backup = directory.resolve(Integer.toString(entries.size()));
+		try {
+			Files.createLink(backup, file);
+		} catch (final UnsupportedOperationException | IOException e) {
+			Files.copy(file, backup, StandardCopyOption.COPY_ATTRIBUTES);
+		}
+		Files.writeString(log, backup.getFileName() + "\t" + file.toAbsolutePath() + "\n", StandardCharsets.UTF_8, //$NON-NLS-1$ //$NON-NLS-2$
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+		entries.add(new Path[] { backup, file });
+	}
+
+	/**
+	 * Restores the original files in reverse order and deletes the journal.
+	 *
+	 * @return Return the number of files which couldn't be restored.
+	 */
+	public synchronized int rollback() {
+		var failed = 0;
+		for (var i = entries.size() - 1; i >= 0; i--) {
+			final var entry = entries.get(i);
+			try {
+				move(entry[0], entry[1]);
+				entries.remove(i);
+			} catch (final IOException e) {
+				e.printStackTrace();
+				failed++;
+			}
+		}
+		if (failed == 0) {
+			commit();
+		}
+		return failed;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A search for a literal text or a regular expression.<br>
+ * An instance remembers the end of the occurrence it found last, so one
+ * instance must not be shared between threads.
+ *
+ * @author philipp@seerainer.com
+ */
+public interface Search {
+
+	/**
+	 * Creates a new search for a background thread.<br>
+	 * A regular expression may take time in proportion to the length of the
+	 * searched range, so a large text isn't cut off by the fixed time of the UI
+	 * thread.
+	 *
+	 * @param searchString The text or the regular expression to search for, not
+	 *                     empty.
+	 * @param ignoreCase   True to ignore the case.
+	 * @param regex        True if the search string is a regular expression.
+	 * @return Return the search.
+	 * @throws PatternSyntaxException If the regular expression is invalid.
+	 */
+	static Search background(final String searchString, final boolean ignoreCase, final boolean regex) {
+		return regex ? new RegexSearch(searchString, ignoreCase, true) : new TextSearch(searchString, ignoreCase);
+	}
+
+	/**
+	 * Creates a new search for the UI thread.<br>
+	 * A regular expression is stopped after a fixed time for every size of the
+	 * text.
+	 *
+	 * @param searchString The text or the regular expression to search for, not
+	 *                     empty.
+	 * @param ignoreCase   True to ignore the case.
+	 * @param regex        True if the search string is a regular expression.
+	 * @return Return the search.
+	 * @throws PatternSyntaxException If the regular expression is invalid.
+	 */
+	static Search of(final String searchString, final boolean ignoreCase, final boolean regex) {
+		return regex ? new RegexSearch(searchString, ignoreCase, false) : new TextSearch(searchString, ignoreCase);
+	}
+
+	/**
+	 * @return Return the offset after the occurrence which was found last.
+	 */
+	int end();
+
+	/**
+	 * Creates the replacement of the occurrence which was found last.
+	 *
+	 * @param replaceString The replacement, which may refer to groups of a
+	 *                      regular expression.
+	 * @return Return the text which replaces the occurrence.
+	 * @throws IllegalArgumentException If the replacement refers to a missing
+	 *                                  group.
+	 */
+	String expand(String replaceString);
+
+	/**
+	 * Searches forward.
+	 *
+	 * @param text The text to search in.
+	 * @param from The index to start the search from.
+	 * @return Return the index of the first occurrence at or after the index or
+	 *         -1.
+	 */
+	int indexOf(CharSequence text, int from);
+
+	/**
+	 * Searches forward for an occurrence which starts before an offset. The
+	 * result is the same as the one of {@link #indexOf(CharSequence, int)} if
+	 * that occurrence starts before the offset.
+	 *
+	 * @param text The text to search in.
+	 * @param from The index to start the search from.
+	 * @param to   The index before which the occurrence must start.
+	 * @return Return the index of the first occurrence in the range or -1.
+	 */
+	int indexOf(CharSequence text, int from, int to);
+
+	/**
+	 * Searches forward for an occurrence which lies in a range. The text after
+	 * the range isn't read, so an occurrence which would go on after the range
+	 * is missed or found shorter.
+	 *
+	 * @param text The text to search in.
+	 * @param from The index to start the search from.
+	 * @param to   The index after the range.
+	 * @return Return the index of the first occurrence in the range or -1.
+	 */
+	int indexOfWithin(CharSequence text, int from, int to);
+
+	/**
+	 * Searches backward.
+	 *
+	 * @param text The text to search in.
+	 * @param from The largest index of an occurrence.
+	 * @return Return the index of the last occurrence at or before the index or
+	 *         -1.
+	 */
+	int lastIndexOf(CharSequence text, int from);
+
+	/**
+	 * Checks if a range of the text is exactly one occurrence.
+	 *
+	 * @param text  The text to search in.
+	 * @param start The offset of the range.
+	 * @param end   The offset after the range.
+	 * @return Return true if the range is an occurrence.
+	 */
+	boolean matches(CharSequence text, int start, int end);
+
+	/**
+	 * @return Return the largest length of an occurrence or -1 if the length has
+	 *         no limit.
+	 */
+	int maxLength();
+}
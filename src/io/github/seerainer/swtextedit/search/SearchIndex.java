@@ -0,0 +1,346 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
+/**
+ * A trigram index of a large text, which finds the blocks of the text that may
+ * contain a literal search text.<br>
+ * Every block of 16K characters has a signature of 16K bits, one bit for each
+ * hash of the case folded trigrams that start in the block. A block can only
+ * contain an occurrence if every trigram of the search text is set in the
+ * signature of the block or of the next one, the other blocks are skipped.
+ * The index is built on a virtual thread from a snapshot when the first search
+ * needs it. An edit keeps the signatures of the blocks before it, the search
+ * is linear after them until the index is completed again by the next search.
+ * The signatures take an eighth of the memory of the text.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class SearchIndex implements TextChangeListener {
+
+	/** Number of bits of the block size. */
+	private static final int BLOCK_BITS = 14;
+
+	/** Number of characters of a block. */
+	private static final int BLOCK = 1 << BLOCK_BITS;
+
+	/** Number of bits of a trigram hash. */
+	private static final int HASH_BITS = 14;
+
+	/** Number of longs of a block signature. */
+	private static final int WORDS = 1 << HASH_BITS - 6;
+
+	/**
+	 * Hashes a case folded trigram.
+	 *
+	 * @param a The first character.
+	 * @param b The second character.
+	 * @param c The third character.
+	 * @return Return the hash.
+	 */
+	private static int hash(final char a, final char b, final char c) {
+		final var key = a | (long) b << 16 | (long) c << 32;
+		return (int) (key * 0x9E3779B97F4A7C15L >>> 64 - HASH_BITS);
+	}
+
+	/**
+	 * Searches backward in a range of the text.
+	 *
+	 * @param search   The search to run.
+	 * @param snapshot The text to search in.
+	 * @param start    The smallest offset of an occurrence.
+	 * @param from     The largest offset of an occurrence.
+	 * @return Return the offset of the last occurrence in the range or -1.
+	 */
+	private static int lastIndexOf(final Search search, final Snapshot snapshot, final int start, final int from) {
+		final var found = search.lastIndexOf(snapshot.subSequence(start, snapshot.length()), from - start);
+		return found < 0 ? -1 : search.indexOf(snapshot, found + start);
+	}
+
+	/**
+	 * Computes the number of blocks which stay valid after an edit. The
+	 * signature of the block before the edited one is also used for the edited
+	 * one, so it is dropped too.
+	 *
+	 * @param offset The offset of the edit.
+	 * @return Return the number of leading blocks which stay valid.
+	 */
+	private static int valid(final int offset) {
+		return Math.max(0, (Math.max(0, offset - 2) >> BLOCK_BITS) - 1);
+	}
+	/** The text widget. */
+	private final StyledText text;
+
+	/** Texts with fewer characters are not indexed. */
+	private final int minSize;
+
+	/** The signatures of the blocks followed by an empty signature or null. */
+	private long[] bits;
+
+	/** Number of leading blocks for which the signatures are valid. */
+	private int indexed;
+
+	/** True while the index is built. */
+	private boolean building;
+
+	/** The smallest offset of an edit while the index is built. */
+	private int changed = Integer.MAX_VALUE;
+
+	/** The number of the current build, changed only by the UI thread. */
+	private volatile int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text    The text widget.
+	 * @param minSize Texts with fewer characters are not indexed.
+	 */
+	public SearchIndex(final StyledText text, final int minSize) {
+		this.text = text;
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Builds the signatures of the blocks from a block on.
+	 *
+	 * @param snapshot The text to index.
+	 * @param previous The signatures of the leading blocks or null.
+	 * @param from     The number of the leading blocks which are kept.
+	 * @param current  The number of the build.
+	 * @return Return the signatures or null if the build was cancelled.
+	 */
+	private long[] build(final Snapshot snapshot, final long[] previous, final int from, final int current) {
+		final var length = snapshot.length();
+		final var blocks = (int) ((length + (long) BLOCK - 1) >> BLOCK_BITS);
+		final var signatures = new long[(blocks + 1) * WORDS];
+		if (previous != null) {
+			System.arraycopy(previous, 0, signatures, 0, from * WORDS);
+		}
+		final var buffer = new char[BLOCK + 2];
+		for (var block = from; block < blocks; block++) {
+			if (current != generation) {
+				return null;
+			}
+			final var start = block << BLOCK_BITS;
+			final var count = (int) Math.min(length - start, BLOCK + 2L);
+			snapshot.getChars(start, start + count, buffer, 0);
+			for (var i = 0; i < count; i++) {
+				buffer[i] = TextSearch.fold(buffer[i]);
+			}
+			final var base = block * WORDS;
+			for (var i = 0; i + 2 < count && i < BLOCK; i++) {
+				final var h = hash(buffer[i], buffer[i + 1], buffer[i + 2]);
+				signatures[base + (h >>> 6)] |= 1L << h;
+			}
+		}
+		return signatures;
+	}
+
+	/**
+	 * Checks if a block may contain an occurrence.
+	 *
+	 * @param block  The index of the block.
+	 * @param hashes The hashes of the trigrams of the search text.
+	 * @return Return false if the block contains no occurrence.
+	 */
+	private boolean candidate(final int block, final int[] hashes) {
+		final var base = block * WORDS;
+		for (final int h : hashes) {
+			final var word = h >>> 6;
+			if (((bits[base + word] | bits[base + WORDS + word]) & 1L << h) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Starts to complete the index if it is not complete.
+	 *
+	 * @param snapshot The current text.
+	 */
+	private void ensure(final Snapshot snapshot) {
+		final var length = snapshot.length();
+		if (building || length < minSize || bits != null && indexed << BLOCK_BITS >= length) {
+			return;
+		}
+		building = true;
+		changed = Integer.MAX_VALUE;
+		final var current = generation;
+		final var previous = bits;
+		final var from = indexed;
+		final var display = text.getDisplay();
+		Thread.ofVirtual().start(() -> {
+			final var signatures = build(snapshot, previous, from, current);
+			if (signatures == null || display.isDisposed()) {
+				return;
+			}
+			try {
+				display.asyncExec(() -> install(signatures, current));
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Computes the hashes of the trigrams of the search text and starts to
+	 * complete the index.
+	 *
+	 * @param literal  The literal search text or null.
+	 * @param snapshot The current text.
+	 * @return Return the distinct hashes or null if the index can not be used.
+	 */
+	private int[] hashes(final String literal, final Snapshot snapshot) {
+		if (literal == null || literal.length() < 3) {
+			return null;
+		}
+		ensure(snapshot);
+		if (bits == null || indexed == 0) {
+			return null;
+		}
+		final var seen = new long[WORDS];
+		final var hashes = new int[Math.min(literal.length() - 2, BLOCK)];
+		var count = 0;
+		for (var i = 0; i < hashes.length; i++) {
+			final var h = hash(TextSearch.fold(literal.charAt(i)), TextSearch.fold(literal.charAt(i + 1)),
+					TextSearch.fold(literal.charAt(i + 2)));
+			if ((seen[h >>> 6] & 1L << h) == 0) {
+				seen[h >>> 6] |= 1L << h;
+				hashes[count++] = h;
+			}
+		}
+		return Arrays.copyOf(hashes, count);
+	}
+
+	/**
+	 * Searches forward and skips the blocks which can not contain an occurrence.
+	 *
+	 * @param search   The search to run.
+	 * @param literal  The literal search text or null for a regular expression.
+	 * @param snapshot The current text.
+	 * @param from     The index to start the search from.
+	 * @return Return the index of the first occurrence at or after the index or
+	 *         -1.
+	 */
+	public int indexOf(final Search search, final String literal, final Snapshot snapshot, final int from) {
+		final var hashes = hashes(literal, snapshot);
+		if (hashes == null) {
+			return search.indexOf(snapshot, from);
+		}
+		var block = Math.max(from, 0) >> BLOCK_BITS;
+		for (; block < indexed; block++) {
+			if (candidate(block, hashes)) {
+				final var end = (int) Math.min(Integer.MAX_VALUE, (long) (block + 1) << BLOCK_BITS);
+				final var found = search.indexOf(snapshot, Math.max(from, block << BLOCK_BITS), end);
+				if (found > -1) {
+					return found;
+				}
+			}
+		}
+		return search.indexOf(snapshot, Math.max(from, block << BLOCK_BITS));
+	}
+
+	/**
+	 * Installs the signatures of a build.
+	 *
+	 * @param signatures The signatures of the blocks.
+	 * @param current    The number of the build.
+	 */
+	private void install(final long[] signatures, final int current) {
+		if (current != generation) {
+			return;
+		}
+		building = false;
+		bits = signatures;
+		final var blocks = signatures.length / WORDS - 1;
+		indexed = changed == Integer.MAX_VALUE ? blocks : Math.min(blocks, valid(changed));
+	}
+
+	/**
+	 * Searches backward and skips the blocks which can not contain an occurrence.
+	 *
+	 * @param search   The search to run.
+	 * @param literal  The literal search text or null for a regular expression.
+	 * @param snapshot The current text.
+	 * @param from     The largest index of an occurrence.
+	 * @return Return the index of the last occurrence at or before the index or
+	 *         -1.
+	 */
+	public int lastIndexOf(final Search search, final String literal, final Snapshot snapshot, final int from) {
+		final var hashes = hashes(literal, snapshot);
+		if (hashes == null) {
+			return search.lastIndexOf(snapshot, from);
+		}
+		if (from < 0) {
+			return -1;
+		}
+		var block = Math.min(from, snapshot.length()) >> BLOCK_BITS;
+		if (block >= indexed) {
+			final var found = lastIndexOf(search, snapshot, indexed << BLOCK_BITS, from);
+			if (found > -1) {
+				return found;
+			}
+			block = indexed - 1;
+		}
+		for (; block >= 0; block--) {
+			if (candidate(block, hashes)) {
+				final var end = (int) Math.min(Integer.MAX_VALUE, ((long) (block + 1) << BLOCK_BITS) - 1);
+				final var found = lastIndexOf(search, snapshot, block << BLOCK_BITS, Math.min(from, end));
+				if (found > -1) {
+					return found;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void textChanged(final TextChangedEvent event) {
+		// the blocks are dropped before the change
+	}
+
+	@Override
+	public void textChanging(final TextChangingEvent event) {
+		indexed = Math.min(indexed, valid(event.start));
+		changed = Math.min(changed, event.start);
+	}
+
+	@Override
+	public void textSet(final TextChangedEvent event) {
+		generation++;
+		building = false;
+		bits = null;
+		indexed = 0;
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.Arrays;
+
+/**
+ * Searches a literal text with the Boyer-Moore-Horspool algorithm.<br>
+ * The characters are compared in place, a case-insensitive search folds every
+ * character like {@link String#equalsIgnoreCase(String)} and never copies the
+ * text.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class TextSearch implements Search {
+
+	/** Size of the skip tables, characters are hashed by their low byte. */
+	private static final int TABLE_SIZE = 256;
+
+	/**
+	 * Folds the case of a character.
+	 *
+	 * @param c The character to fold.
+	 * @return Return the lowercase of the uppercase of the character.
+	 */
+	public static char fold(final char c) {
+		if (c < 128) {
+			return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+		}
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	/** The characters of the search text, folded if the case is ignored. */
+	private final char[] pattern;
+
+	/** True if the case is ignored. */
+	private final boolean ignoreCase;
+
+	/** The shifts of a forward search. */
+	private final int[] forward = new int[TABLE_SIZE];
+
+	/** The shifts of a backward search. */
+	private final int[] backward = new int[TABLE_SIZE];
+
+	/** The offset after the occurrence which was found last. */
+	private int end;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param searchString The text to search for, not empty.
+	 * @param ignoreCase   True to ignore the case.
+	 */
+	public TextSearch(final String searchString, final boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		this.pattern = searchString.toCharArray();
+		final var m = pattern.length;
+		if (ignoreCase) {
+			for (var i = 0; i < m; i++) {
+				pattern[i] = fold(pattern[i]);
+			}
+		}
+		Arrays.fill(forward, m);
+		Arrays.fill(backward, m);
+		for (var i = 0; i < m - 1; i++) {
+			forward[pattern[i] & 0xFF] = m - 1 - i;
+		}
+		for (var i = m - 1; i > 0; i--) {
+			backward[pattern[i] & 0xFF] = i;
+		}
+	}
+
+	@Override
+	public int end() {
+		return end;
+	}
+
+	@Override
+	public String expand(final String replaceString) {
+		return replaceString;
+	}
+
+	/**
+	 * @param text  The text to read.
+	 * @param index The index of the character.
+	 * @return Return the character, folded if the case is ignored.
+	 */
+	private char at(final CharSequence text, final int index) {
+		final var c = text.charAt(index);
+		return ignoreCase ? fold(c) : c;
+	}
+
+	@Override
+	public int indexOf(final CharSequence text, final int from) {
+		return indexOf(text, from, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int indexOf(final CharSequence text, final int from, final int to) {
+		final var m = pattern.length;
+		final var last = Math.min(text.length() - m, to - 1);
+		for (var i = Math.max(from, 0); i <= last;) {
+			final var c = at(text, i + m - 1);
+			if (c == pattern[m - 1] && matches(text, i, 0, m - 1)) {
+				end = i + m;
+				return i;
+			}
+			i += forward[c & 0xFF];
+		}
+		return -1;
+	}
+
+	@Override
+	public int indexOfWithin(final CharSequence text, final int from, final int to) {
+		return indexOf(text, from, to - pattern.length + 1);
+	}
+
+	@Override
+	public int lastIndexOf(final CharSequence text, final int from) {
+		final var m = pattern.length;
+		for (var i = Math.min(from, text.length() - m); i >= 0;) {
+			final var c = at(text, i);
+			if (c == pattern[0] && matches(text, i, 1, m)) {
+				end = i + m;
+				return i;
+			}
+			i -= backward[c & 0xFF];
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean matches(final CharSequence text, final int start, final int end) {
+		if (end - start != pattern.length || !matches(text, start, 0, pattern.length)) {
+			return false;
+		}
+		this.end = end;
+		return true;
+	}
+
+	/**
+	 * Compares characters of an occurrence with the search text.
+	 *
+	 * @param text     The text to search in.
+	 * @param position The index of the occurrence.
+	 * @param from     The index of the first character to compare.
+	 * @param to       The index after the last character to compare.
+	 * @return Return true if the characters match.
+	 */
+	private boolean matches(final CharSequence text, final int position, final int from, final int to) {
+		for (var i = to - 1; i >= from; i--) {
+			if (at(text, position + i) != pattern[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int maxLength() {
+		return pattern.length;
+	}
+}
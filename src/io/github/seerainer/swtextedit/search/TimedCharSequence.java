@@ -0,0 +1,110 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.search;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A view of a text which stops a search after a deadline, when the thread is
+ * interrupted or when the search is cancelled.<br>
+ * The clock and the flags are checked every few thousand characters, a
+ * regular expression which backtracks forever is therefore stopped with a
+ * {@link CancellationException}. A task on a pool isn't interrupted, so it
+ * gets the flag of its search instead.
+ *
+ * @author philipp@seerainer.com
+ */
+final class TimedCharSequence implements CharSequence {
+
+	/** Number of reads between two checks of the clock. */
+	private static final int STEP_MASK = (1 << 12) - 1;
+
+	/** The text to read. */
+	private final CharSequence text;
+
+	/** The deadline of {@link System#nanoTime()}. */
+	private final long deadline;
+
+	/** True if the search has a deadline. */
+	private final boolean timed;
+
+	/** True if the search was cancelled, may be null. */
+	private final AtomicBoolean cancelled;
+
+	/** The number of reads. */
+	private int steps;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text    The text to read.
+	 * @param timeout The time in nanoseconds the search may take, 0 for no
+	 *                limit.
+	 */
+	TimedCharSequence(final CharSequence text, final long timeout) {
+		this(text, timeout, null);
+	}
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text      The text to read.
+	 * @param timeout   The time in nanoseconds the search may take, 0 for no
+	 *                  limit.
+	 * @param cancelled True if the search was cancelled, may be null.
+	 */
+	TimedCharSequence(final CharSequence text, final long timeout, final AtomicBoolean cancelled) {
+		this.text = text;
+		this.deadline = System.nanoTime() + timeout;
+		this.timed = timeout > 0;
+		this.cancelled = cancelled;
+	}
+
+	@Override
+	public char charAt(final int index) {
+		if ((++steps & STEP_MASK) == 0) {
+			if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.get())) {
+				throw new CancellationException("Search interrupted"); //$NON-NLS-1$
+			}
+			if (timed && System.nanoTime() - deadline > 0) {
+				throw new CancellationException("Search timed out"); //$NON-NLS-1$
+			}
+		}
+		return text.charAt(index);
+	}
+
+	@Override
+	public int length() {
+		return text.length();
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		return text.subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+		return text.toString();
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.syntax;
+
+import java.util.Set;
+
+/**
+ * A lexer for the languages with the syntax of C, which finds comments,
+ * keywords, numbers and strings.<br>
+ * Block comments and strings in triple quotes can span lines, all other
+ * tokens end with their line. The state is the kind of the open block at the
+ * end of a line.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class CodeLexer implements Lexer {
+
+	/** The state inside a block comment. */
+	private static final int BLOCK_COMMENT = 1;
+
+	/** The state inside a triple quoted string, plus the index of the quote. */
+	private static final int TRIPLE_QUOTE = 2;
+
+	/**
+	 * Searches the end of a block.
+	 *
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line.
+	 * @param from   The offset to start the search from.
+	 * @param end    The characters which end the block.
+	 * @return Return the offset after the end of the block or -1.
+	 */
+	private static int close(final char[] line, final int length, final int from, final String end) {
+		for (var i = from; i <= length - end.length(); i++) {
+			if (startsWith(line, length, i, end)) {
+				return i + end.length();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line.
+	 * @param offset The offset in the line.
+	 * @param prefix The characters to compare.
+	 * @return Return true if the characters at the offset are the prefix.
+	 */
+	private static boolean startsWith(final char[] line, final int length, final int offset, final String prefix) {
+		if (prefix == null || offset + prefix.length() > length) {
+			return false;
+		}
+		for (var i = 0; i < prefix.length(); i++) {
+			if (line[offset + i] != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Searches the end of a string, which ends with the line if it isn't
+	 * closed.
+	 *
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line.
+	 * @param start  The offset of the opening quote.
+	 * @return Return the offset after the closing quote or the length.
+	 */
+	private static int string(final char[] line, final int length, final int start) {
+		for (var i = start + 1; i < length; i++) {
+			if (line[i] == '\\') {
+				i++;
+			} else if (line[i] == line[start]) {
+				return i + 1;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Searches the end of a keyword, an identifier or a number.
+	 *
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line.
+	 * @param start  The offset of the first character.
+	 * @return Return the offset after the last character.
+	 */
+	private static int word(final char[] line, final int length, final int start) {
+		var i = start + 1;
+		while (i < length && (Character.isJavaIdentifierPart(line[i])
+				|| line[i] == '.' && Character.isDigit(line[start]))) {
+			i++;
+		}
+		return i;
+	}
+
+	/** The keywords of the language. */
+	private final Set<String> keywords;
+
+	/** The start of a line comment or null. */
+	private final String lineComment;
+
+	/** True if the language has block comments. */
+	private final boolean blockComments;
+
+	/** The quotes which open a string in triple quotes. */
+	private final String tripleQuotes;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param keywords      The keywords of the language, separated by spaces.
+	 * @param lineComment   The start of a line comment or null.
+	 * @param blockComments True if the language has block comments.
+	 * @param tripleQuotes  The quotes which open a string in triple quotes.
+	 */
+	public CodeLexer(final String keywords, final String lineComment, final boolean blockComments,
+			final String tripleQuotes) {
+		this.keywords = Set.of(keywords.split(" ")); //$NON-NLS-1$
+		this.lineComment = lineComment;
+		this.blockComments = blockComments;
+		this.tripleQuotes = tripleQuotes;
+	}
+
+	/**
+	 * Finds the end of a block and adds the block as a token.
+	 *
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line.
+	 * @param start  The offset of the block in the line.
+	 * @param from   The offset to start the search for the end from.
+	 * @param state  The state inside the block.
+	 * @param tokens Receives the token or null.
+	 * @return Return the offset after the block or -1 if the block doesn't end
+	 *         in the line.
+	 */
+	private int block(final char[] line, final int length, final int start, final int from, final int state,
+			final Tokens tokens) {
+		final var end = close(line, length, from, state == BLOCK_COMMENT ? "*/" //$NON-NLS-1$
+				: String.valueOf(tripleQuotes.charAt(state - TRIPLE_QUOTE)).repeat(3));
+		if (tokens != null) {
+			tokens.add(start, end < 0 ? length : end, state == BLOCK_COMMENT ? COMMENT : STRING);
+		}
+		return end;
+	}
+
+	@Override
+	public int lex(final char[] line, final int length, final int state, final Tokens tokens) {
+		var i = 0;
+		if (state != INITIAL) {
+			i = block(line, length, 0, 0, state, tokens);
+			if (i < 0) {
+				return state;
+			}
+		}
+		while (i < length) {
+			final var c = line[i];
+			final var quote = tripleQuotes.indexOf(c);
+			final int end;
+			if (blockComments && startsWith(line, length, i, "/*")) { //$NON-NLS-1$
+				end = block(line, length, i, i + 2, BLOCK_COMMENT, tokens);
+				if (end < 0) {
+					return BLOCK_COMMENT;
+				}
+			} else if (startsWith(line, length, i, lineComment)) {
+				if (tokens != null) {
+					tokens.add(i, length, COMMENT);
+				}
+				return INITIAL;
+			} else if (quote >= 0 && startsWith(line, length, i, String.valueOf(c).repeat(3))) {
+				end = block(line, length, i, i + 3, TRIPLE_QUOTE + quote, tokens);
+				if (end < 0) {
+					return TRIPLE_QUOTE + quote;
+				}
+			} else if (c == '"' || c == '\'') {
+				end = string(line, length, i);
+				if (tokens != null) {
+					tokens.add(i, end, STRING);
+				}
+			} else if (Character.isDigit(c)) {
+				end = word(line, length, i);
+				if (tokens != null) {
+					tokens.add(i, end, NUMBER);
+				}
+			} else if (Character.isJavaIdentifierStart(c)) {
+				end = word(line, length, i);
+				if (tokens != null && keywords.contains(new String(line, i, end - i))) {
+					tokens.add(i, end, KEYWORD);
+				}
+			} else {
+				end = i + 1;
+			}
+			i = end;
+		}
+		return INITIAL;
+	}
+}
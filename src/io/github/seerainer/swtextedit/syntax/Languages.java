@@ -0,0 +1,113 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.syntax;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * The lexers of the languages with syntax highlighting, chosen by the
+ * extension of the file name.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class Languages {
+
+	/** The lexer of C and C++. */
+	private static final Lexer C = new CodeLexer(
+			"auto bool break case catch char class const constexpr continue default delete do double else enum " //$NON-NLS-1$
+					+ "explicit extern false float for friend goto if inline int long namespace new noexcept " //$NON-NLS-1$
+					+ "nullptr operator private protected public register return short signed sizeof static " //$NON-NLS-1$
+					+ "struct switch template this throw true try typedef typename union unsigned using virtual " //$NON-NLS-1$
+					+ "void volatile while", //$NON-NLS-1$
+			"//", true, ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** The lexer of C#. */
+	private static final Lexer CSHARP = new CodeLexer(
+			"abstract as async await base bool break byte case catch char checked class const continue decimal " //$NON-NLS-1$
+					+ "default delegate do double else enum event explicit extern false finally fixed float for " //$NON-NLS-1$
+					+ "foreach goto if implicit in int interface internal is lock long namespace new null object " //$NON-NLS-1$
+					+ "operator out override params private protected public readonly record ref return sbyte " //$NON-NLS-1$
+					+ "sealed short sizeof static string struct switch this throw true try typeof uint ulong " //$NON-NLS-1$
+					+ "unchecked unsafe ushort using var virtual void volatile while", //$NON-NLS-1$
+			"//", true, "\""); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** The lexer of Java. */
+	private static final Lexer JAVA = new CodeLexer(
+			"abstract assert boolean break byte case catch char class const continue default do double else enum " //$NON-NLS-1$
+					+ "exports extends false final finally float for goto if implements import instanceof int " //$NON-NLS-1$
+					+ "interface long module native new non-sealed null package permits private protected public " //$NON-NLS-1$
+					+ "record requires return sealed short static strictfp super switch synchronized this throw " //$NON-NLS-1$
+					+ "throws transient true try var void volatile while yield", //$NON-NLS-1$
+			"//", true, "\""); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** The lexer of JavaScript and TypeScript. */
+	private static final Lexer JAVASCRIPT = new CodeLexer(
+			"abstract any as async await boolean break case catch class const constructor continue debugger " //$NON-NLS-1$
+					+ "declare default delete do else enum export extends false finally for from function get if " //$NON-NLS-1$
+					+ "implements import in instanceof interface let new null number of private protected public " //$NON-NLS-1$
+					+ "readonly return set static string super switch this throw true try type typeof undefined " //$NON-NLS-1$
+					+ "var void while with yield", //$NON-NLS-1$
+			"//", true, ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** The lexer of Python. */
+	private static final Lexer PYTHON = new CodeLexer(
+			"False None True and as assert async await break class continue def del elif else except finally " //$NON-NLS-1$
+					+ "for from global if import in is lambda nonlocal not or pass raise return try while with " //$NON-NLS-1$
+					+ "yield", //$NON-NLS-1$
+			"#", false, "\"'"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/** The lexer of shell scripts. */
+	private static final Lexer SHELL = new CodeLexer(
+			"case do done elif else esac export fi for function if in local read return select shift then " //$NON-NLS-1$
+					+ "until while", //$NON-NLS-1$
+			"#", false, ""); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * @param filename The path and name of the file or null.
+	 * @return Return the lexer for the extension of the file name or null
+	 *         without syntax highlighting.
+	 */
+	public static Lexer forFile(final String filename) {
+		if (filename == null) {
+			return null;
+		}
+		final var name = new File(filename).getName();
+		final var dot = name.lastIndexOf('.');
+		if (dot < 0) {
+			return null;
+		}
+		return switch (name.substring(dot + 1).toLowerCase(Locale.ROOT)) {
+		case "c", "cc", "cpp", "cxx", "h", "hh", "hpp", "hxx" -> C; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+		case "cs" -> CSHARP; //$NON-NLS-1$
+		case "java" -> JAVA; //$NON-NLS-1$
+		case "js", "jsx", "mjs", "ts", "tsx" -> JAVASCRIPT; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		case "py", "pyw" -> PYTHON; //$NON-NLS-1$ //$NON-NLS-2$
+		case "bash", "sh", "zsh" -> SHELL; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		default -> null;
+		};
+	}
+
+	/** Private empty constructor. */
+	private Languages() {
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.syntax;
+
+/**
+ * Splits the lines of a text into tokens for the syntax highlighting.<br>
+ * A lexer has no state of its own. The state at the start of a line is passed
+ * in and the state at its end is returned, so every line can be lexed again
+ * from the state at its start, on any thread.
+ *
+ * @author philipp@seerainer.com
+ */
+public interface Lexer {
+
+	/** The state at the start of the text. */
+	int INITIAL = 0;
+
+	/** The token type of a comment. */
+	int COMMENT = 1;
+
+	/** The token type of a keyword. */
+	int KEYWORD = 2;
+
+	/** The token type of a number. */
+	int NUMBER = 3;
+
+	/** The token type of a string or character literal. */
+	int STRING = 4;
+
+	/**
+	 * Splits a line into tokens.
+	 *
+	 * @param line   The characters of the line.
+	 * @param length The number of characters of the line without the delimiter.
+	 * @param state  The state at the start of the line.
+	 * @param tokens Receives the tokens of the line, or null if only the state
+	 *               is needed.
+	 * @return Return the state at the end of the line.
+	 */
+	int lex(char[] line, int length, int state, Tokens tokens);
+}
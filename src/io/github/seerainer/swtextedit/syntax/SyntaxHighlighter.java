@@ -0,0 +1,399 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.syntax;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.custom.LineStyleEvent;
+import org.eclipse.swt.custom.LineStyleListener;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.widgets.Display;
+
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
+/**
+ * Highlights the syntax of the text with the tokens of a lexer.<br>
+ * The state of the lexer at the start of every line is kept as a checkpoint.
+ * The states are computed on a virtual thread from a snapshot and handed to
+ * the UI thread in chunks. An edit moves the checkpoints after it and lexes
+ * again from the edited line, until the state at the start of a line after the
+ * edit is the same as before, because the lines after it are unchanged then.
+ * So typing lexes a few lines, only opening or closing a comment lexes to the
+ * end of it. The tokens of a line are lexed from its checkpoint when it is
+ * drawn and cached until its state or its text changes.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class SyntaxHighlighter implements LineStyleListener, TextChangeListener {
+
+	/** Number of characters which are read at once. */
+	private static final int BLOCK = 1 << 14;
+
+	/** Lines with more characters are not highlighted. */
+	private static final int LONG_LINE = 1 << 14;
+
+	/** Number of lines of the first chunk of a run, small for a short edit. */
+	private static final int FIRST_CHUNK = 1 << 6;
+
+	/** Maximum number of lines of a chunk. */
+	private static final int MAX_CHUNK = 1 << 12;
+
+	/** The text widget. */
+	private final StyledText text;
+
+	/** The display of the text widget. */
+	private final Display display;
+
+	/** The colors of the token types. */
+	private final Color[] colors;
+
+	/** Receives the tokens of a drawn line. */
+	private final Tokens cache = new Tokens();
+
+	/** The lexer of the language or null without highlighting. */
+	private Lexer lexer;
+
+	/** The state at the start of every line. */
+	private int[] states;
+
+	/** The cached tokens of the lines or null. */
+	private int[][] tokens;
+
+	/** Number of leading lines whose states are correct. */
+	private int valid;
+
+	/** Number of leading lines which have a state, which may be outdated. */
+	private int lexed;
+
+	/**
+	 * The last line whose state may not follow from the state of the line
+	 * before, because the line was edited or a run stopped there.
+	 */
+	private int dirty;
+
+	/** True if a run is scheduled. */
+	private boolean scheduled;
+
+	/** The number of the current run, changed only by the UI thread. */
+	private volatile int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text   The text widget.
+	 * @param colors The colors of the token types, with the token type as
+	 *               index.
+	 */
+	public SyntaxHighlighter(final StyledText text, final Color[] colors) {
+		this.text = text;
+		this.display = text.getDisplay();
+		this.colors = colors;
+	}
+
+	/**
+	 * Installs the states of a chunk, until the states are the same as before.
+	 *
+	 * @param first   The line of the first lexed line.
+	 * @param ends    The states at the end of the lexed lines.
+	 * @param count   The number of lexed lines.
+	 * @param last    True if the run has reached the end of the text.
+	 * @param current The number of the run.
+	 */
+	private void install(final int first, final int[] ends, final int count, final boolean last,
+			final int current) {
+		if (current != generation) {
+			return;
+		}
+		var from = Integer.MAX_VALUE;
+		var to = -1;
+		var converged = false;
+		for (var i = 0; i < count; i++) {
+			final var line = first + i + 1;
+			if (line < lexed && line > dirty && states[line] == ends[i]) {
+				converged = true;
+				break;
+			}
+			if (line >= lexed || states[line] != ends[i]) {
+				states[line] = ends[i];
+				tokens[line] = null;
+				from = Math.min(from, line);
+				to = line;
+			}
+			valid = line + 1;
+			lexed = Math.max(lexed, valid);
+		}
+		if (converged) {
+			valid = lexed;
+			generation++;
+			schedule();
+		}
+		dirty = converged || last ? -1 : Math.max(dirty, first + count);
+		redraw(from, to);
+	}
+
+	/**
+	 * Lexes the text from a line on and hands the states to the UI thread.
+	 *
+	 * @param snapshot The text.
+	 * @param lexer1   The lexer of the language.
+	 * @param first    The first line to lex.
+	 * @param offset   The offset of the first line.
+	 * @param state    The state at the start of the first line.
+	 * @param current  The number of the run, the run stops if it changes.
+	 */
+	private void lex(final Snapshot snapshot, final Lexer lexer1, final int first, final int offset,
+			final int state, final int current) {
+		final var length = snapshot.length();
+		final var buffer = new char[BLOCK];
+		var line = new char[256];
+		var lineLength = 0;
+		var lineState = state;
+		var cr = false;
+		var start = first;
+		var ends = new int[FIRST_CHUNK];
+		var count = 0;
+		for (var position = offset; position < length; position += BLOCK) {
+			if (current != generation) {
+				return;
+			}
+			final var end = Math.min(length, position + BLOCK);
+			snapshot.getChars(position, end, buffer, 0);
+			for (var i = 0; i < end - position; i++) {
+				final var c = buffer[i];
+				if (c == '\n' && cr) {
+					cr = false;
+					continue;
+				}
+				cr = c == '\r';
+				if (c != '\n' && c != '\r') {
+					if (lineLength < LONG_LINE) {
+						if (lineLength == line.length) {
+							line = Arrays.copyOf(line, line.length * 2);
+						}
+						line[lineLength] = c;
+					}
+					lineLength++;
+					continue;
+				}
+				if (lineLength <= LONG_LINE) {
+					lineState = lexer1.lex(line, lineLength, lineState, null);
+				}
+				lineLength = 0;
+				ends[count++] = lineState;
+				if (count == ends.length) {
+					post(start, ends, count, false, current);
+					start += count;
+					ends = new int[Math.min(count * 2, MAX_CHUNK)];
+					count = 0;
+					if (current != generation) {
+						return;
+					}
+				}
+			}
+		}
+		post(start, ends, count, true, current);
+	}
+
+	@Override
+	public void lineGetStyle(final LineStyleEvent event) {
+		if (lexer == null || event.lineText.length() > LONG_LINE) {
+			return;
+		}
+		final var line = text.getContent().getLineAtOffset(event.lineOffset);
+		if (line >= lexed) {
+			return;
+		}
+		var lineTokens = tokens[line];
+		if (lineTokens == null) {
+			final var chars = event.lineText.toCharArray();
+			cache.clear();
+			lexer.lex(chars, chars.length, states[line], cache);
+			lineTokens = cache.toArray();
+			tokens[line] = lineTokens;
+		}
+		final var styles = new StyleRange[lineTokens.length / 3];
+		for (var i = 0; i < styles.length; i++) {
+			final var start = lineTokens[i * 3];
+			styles[i] = new StyleRange(event.lineOffset + start, lineTokens[i * 3 + 1] - start,
+					colors[lineTokens[i * 3 + 2]], null);
+		}
+		event.styles = styles;
+	}
+
+	/**
+	 * Hands the states of a chunk to the UI thread.
+	 *
+	 * @param first   The line of the first lexed line.
+	 * @param ends    The states at the end of the lexed lines.
+	 * @param count   The number of lexed lines.
+	 * @param last    True if the run has reached the end of the text.
+	 * @param current The number of the run.
+	 */
+	private void post(final int first, final int[] ends, final int count, final boolean last, final int current) {
+		if (display.isDisposed()) {
+			return;
+		}
+		try {
+			display.asyncExec(() -> install(first, ends, count, last, current));
+		} catch (final SWTException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Redraws the visible lines of a range.
+	 *
+	 * @param from The first line.
+	 * @param to   The last line.
+	 */
+	private void redraw(final int from, final int to) {
+		if (from > to || text.isDisposed()) {
+			return;
+		}
+		final var top = Math.max(from, text.getTopIndex());
+		final var bottom = Math.min(to, text.getLineIndex(text.getClientArea().height));
+		if (top > bottom) {
+			return;
+		}
+		final var start = text.getOffsetAtLine(top);
+		final var end = bottom + 1 < text.getLineCount() ? text.getOffsetAtLine(bottom + 1) : text.getCharCount();
+		text.redrawRange(start, end - start, false);
+	}
+
+	/**
+	 * Drops all states and lexes the whole text again.
+	 */
+	private void reset() {
+		generation++;
+		if (lexer == null) {
+			states = null;
+			tokens = null;
+			return;
+		}
+		final var lines = text.getContent().getLineCount();
+		states = new int[lines + 1];
+		tokens = new int[lines + 1][];
+		states[0] = Lexer.INITIAL;
+		valid = 1;
+		lexed = 1;
+		dirty = -1;
+		schedule();
+	}
+
+	/**
+	 * Schedules a run from the first line whose state may be wrong.
+	 */
+	private void schedule() {
+		if (scheduled) {
+			return;
+		}
+		scheduled = true;
+		display.asyncExec(this::start);
+	}
+
+	/**
+	 * Sets the lexer of the language and highlights the text with it.
+	 *
+	 * @param lexer The lexer or null without highlighting.
+	 */
+	public void setLexer(final Lexer lexer) {
+		if (lexer == this.lexer) {
+			return;
+		}
+		this.lexer = lexer;
+		reset();
+		text.redraw();
+	}
+
+	/**
+	 * Starts a run on a virtual thread, which cancels a running one.
+	 */
+	private void start() {
+		scheduled = false;
+		if (lexer == null || text.isDisposed()) {
+			return;
+		}
+		final var content = (TextContent) text.getContent();
+		if (valid >= content.getLineCount()) {
+			return;
+		}
+		final var current = ++generation;
+		final var first = valid - 1;
+		final var offset = content.getOffsetAtLine(first);
+		final var state = states[first];
+		final var snapshot = content.snapshot();
+		final var lexer1 = lexer;
+		Thread.ofVirtual().start(() -> lex(snapshot, lexer1, first, offset, state, current));
+	}
+
+	@Override
+	public void textChanged(final TextChangedEvent event) {
+		if (lexer != null) {
+			schedule();
+		}
+	}
+
+	@Override
+	public void textChanging(final TextChangingEvent event) {
+		if (lexer == null) {
+			return;
+		}
+		generation++;
+		final var content = text.getContent();
+		final var lines = content.getLineCount();
+		final var line = content.getLineAtOffset(event.start);
+		final var removed = event.replaceLineCount;
+		final var added = event.newLineCount;
+		final var delta = added - removed;
+		if (lines + delta + 1 > states.length) {
+			final var capacity = Math.max(states.length * 2, lines + delta + 1);
+			states = Arrays.copyOf(states, capacity);
+			tokens = Arrays.copyOf(tokens, capacity);
+		}
+		if (delta != 0) {
+			System.arraycopy(states, line + removed + 1, states, line + added + 1, lines - line - removed - 1);
+			System.arraycopy(tokens, line + removed + 1, tokens, line + added + 1, lines - line - removed - 1);
+		}
+		if (delta < 0) {
+			Arrays.fill(tokens, lines + delta, lines, null);
+		}
+		Arrays.fill(states, line + 1, line + added + 1, states[line]);
+		Arrays.fill(tokens, line, line + added + 1, null);
+		valid = Math.min(valid, line + 1);
+		lexed = lexed > line + removed ? lexed + delta : Math.min(lexed, line + 1);
+		dirty = Math.max(dirty > line + removed ? dirty + delta : Math.min(dirty, line), line + added);
+	}
+
+	@Override
+	public void textSet(final TextChangedEvent event) {
+		if (lexer != null) {
+			reset();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.syntax;
+
+import java.util.Arrays;
+
+/**
+ * The tokens of a line, stored as the start, the end and the type of every
+ * token in an int array.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class Tokens {
+
+	/** The start, the end and the type of the tokens. */
+	private int[] data = new int[48];
+
+	/** The number of used values of the data. */
+	private int count;
+
+	/**
+	 * Adds a token, a token which follows one of the same type is joined with
+	 * it.
+	 *
+	 * @param start The offset of the token in the line.
+	 * @param end   The offset after the token in the line.
+	 * @param type  The type of the token.
+	 */
+	public void add(final int start, final int end, final int type) {
+		if (start >= end) {
+			return;
+		}
+		if (count > 0 && data[count - 1] == type && data[count - 2] == start) {
+			data[count - 2] = end;
+			return;
+		}
+		if (count + 3 > data.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+		data[count++] = start;
+		data[count++] = end;
+		data[count++] = type;
+	}
+
+	/** Removes all tokens. */
+	void clear() {
+		count = 0;
+	}
+
+	/**
+	 * @return Return a copy of the start, the end and the type of the tokens.
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(data, count);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.text;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.custom.LineBackgroundEvent;
+import org.eclipse.swt.custom.LineBackgroundListener;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+import org.eclipse.swt.graphics.Color;
+
+/**
+ * The bookmarked lines of the text.<br>
+ * The line numbers are kept sorted in an int array. An edit removes the
+ * bookmarks of the lines it joins and moves the bookmarks after it by the
+ * number of added or removed lines, so the bookmarks stay on their lines. The
+ * bookmarked lines get a background color.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class Bookmarks implements LineBackgroundListener, TextChangeListener {
+
+	/** The text widget. */
+	private final StyledText text;
+
+	/** The background color of the bookmarked lines. */
+	private final Color color;
+
+	/** The sorted line numbers of the bookmarks. */
+	private int[] lines = new int[16];
+
+	/** The number of bookmarks. */
+	private int count;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text  The text widget.
+	 * @param color The background color of the bookmarked lines.
+	 */
+	public Bookmarks(final StyledText text, final Color color) {
+		this.text = text;
+		this.color = color;
+	}
+
+	@Override
+	public void lineGetBackground(final LineBackgroundEvent event) {
+		if (count > 0 && Arrays.binarySearch(lines, 0, count, text.getLineAtOffset(event.lineOffset)) >= 0) {
+			event.lineBackground = color;
+		}
+	}
+
+	/**
+	 * @param line The line to start from.
+	 * @return Returns the first bookmark after the line, the first bookmark if
+	 *         there is none after it, or -1 without bookmarks.
+	 */
+	public int next(final int line) {
+		if (count == 0) {
+			return -1;
+		}
+		final var index = Arrays.binarySearch(lines, 0, count, line + 1);
+		final var next = index >= 0 ? index : -index - 1;
+		return lines[next < count ? next : 0];
+	}
+
+	/**
+	 * @param line The line to start from.
+	 * @return Returns the last bookmark before the line, the last bookmark if
+	 *         there is none before it, or -1 without bookmarks.
+	 */
+	public int previous(final int line) {
+		if (count == 0) {
+			return -1;
+		}
+		final var index = Arrays.binarySearch(lines, 0, count, line - 1);
+		final var previous = index >= 0 ? index : -index - 2;
+		return lines[previous >= 0 ? previous : count - 1];
+	}
+
+	@Override
+	public void textChanged(final TextChangedEvent event) {
+		// the bookmarks are moved before the change
+	}
+
+	@Override
+	public void textChanging(final TextChangingEvent event) {
+		if (count == 0) {
+			return;
+		}
+		final var first = text.getContent().getLineAtOffset(event.start);
+		final var last = first + event.replaceLineCount;
+		final var delta = event.newLineCount - event.replaceLineCount;
+		var kept = 0;
+		for (var i = 0; i < count; i++) {
+			final var line = lines[i];
+			if (line <= first) {
+				lines[kept++] = line;
+			} else if (line > last) {
+				lines[kept++] = line + delta;
+			}
+		}
+		count = kept;
+	}
+
+	@Override
+	public void textSet(final TextChangedEvent event) {
+		count = 0;
+	}
+
+	/**
+	 * Adds a bookmark to the line or removes it.
+	 *
+	 * @param line The line of the bookmark.
+	 */
+	public void toggle(final int line) {
+		final var index = Arrays.binarySearch(lines, 0, count, line);
+		if (index >= 0) {
+			System.arraycopy(lines, index + 1, lines, index, count - index - 1);
+			count--;
+		} else {
+			final var insert = -index - 1;
+			if (count == lines.length) {
+				lines = Arrays.copyOf(lines, count << 1);
+			}
+			System.arraycopy(lines, insert, lines, insert + 1, count - insert);
+			lines[insert] = line;
+			count++;
+		}
+		text.redraw();
+	}
+}
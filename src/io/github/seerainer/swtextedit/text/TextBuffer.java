@@ -0,0 +1,369 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.text;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Append-only character storage of the text content.<br>
+ * The characters are kept in blocks of a fixed size, so appending never copies
+ * the characters which are already stored. The offsets of the line starts are
+ * recorded while appending.<br>
+ * A buffer can also wrap the bytes of a memory-mapped file, if every byte is
+ * one character. Such a buffer is read-only. If another program truncates the
+ * file while it is open, reading a byte behind its new end raises an
+ * {@link InternalError}. The buffer then finds the first byte which can't be
+ * read anymore, the characters from there on are lost and read as U+FFFD. In
+ * compiled code the error may only be raised in a caller, which calls
+ * {@link #recover()} instead.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class TextBuffer {
+
+	/** Number of bits of the block size. */
+	private static final int BLOCK_SHIFT = 16;
+
+	/** The size of one block in characters. */
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	/** Mask for the position inside of a block. */
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	/** The character of a wrapped byte which can't be read anymore. */
+	private static final char LOST = '\uFFFD';
+
+	/** The buffers which wrap the bytes of a mapped file. */
+	private static final Set<TextBuffer> WRAPPED = Collections
+			.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	/**
+	 * Finds the bytes which can't be read anymore in all buffers of mapped
+	 * files, after an {@link InternalError} was raised by one of them.
+	 */
+	public static void recover() {
+		final List<TextBuffer> buffers;
+		synchronized (WRAPPED) {
+			buffers = List.copyOf(WRAPPED);
+		}
+		buffers.forEach(TextBuffer::truncated);
+	}
+
+	/**
+	 * Wraps the bytes as read-only buffer, every byte is one ISO-8859-1
+	 * character.
+	 *
+	 * @param bytes     The bytes of the text.
+	 * @param asciiOnly If true the bytes must be 7-bit ASCII.
+	 * @return Returns the new buffer or null if asciiOnly is true and a byte isn't
+	 *         ASCII.
+	 */
+	public static TextBuffer wrap(final ByteBuffer bytes, final boolean asciiOnly) {
+		final var buffer = new TextBuffer(bytes);
+		WRAPPED.add(buffer);
+		final var limit = bytes.limit();
+		for (var i = 0; i < limit; i++) {
+			final var b = bytes.get(i);
+			if (b == '\n') {
+				if (buffer.lineStartCount > 0 && buffer.lineStarts[buffer.lineStartCount - 1] == i && i > 0
+						&& bytes.get(i - 1) == '\r') {
+					buffer.lineStarts[buffer.lineStartCount - 1] = i + 1;
+				} else {
+					buffer.addLineStart(i + 1);
+				}
+			} else if (b == '\r') {
+				buffer.addLineStart(i + 1);
+			} else if (asciiOnly && b < 0) {
+				return null;
+			}
+		}
+		return buffer;
+	}
+
+	/** The wrapped bytes or null if the characters are stored in blocks. */
+	private final ByteBuffer bytes;
+
+	/** The blocks of characters. */
+	private char[][] blocks = new char[0][];
+
+	/** The amount of characters in the buffer. */
+	private int length;
+
+	/** The amount of wrapped bytes which can still be read. */
+	private int readable;
+
+	/** The sorted offsets of all line starts, except the first one. */
+	private int[] lineStarts = new int[16];
+
+	/** The amount of recorded line starts. */
+	private int lineStartCount;
+
+	/** Public empty constructor. */
+	public TextBuffer() {
+		this.bytes = null;
+	}
+
+	/**
+	 * Creates a new read-only buffer of the bytes.
+	 *
+	 * @param bytes The bytes of the text.
+	 */
+	private TextBuffer(final ByteBuffer bytes) {
+		this.bytes = bytes;
+		this.length = bytes.limit();
+		this.readable = length;
+	}
+
+	/**
+	 * Appends the characters to the end of the buffer.
+	 *
+	 * @param chars  The source of the characters.
+	 * @param offset The offset of the first character in the source.
+	 * @param count  The amount of characters to append.
+	 */
+	public void append(final char[] chars, final int offset, final int count) {
+		ensureCapacity(count);
+		var index = offset;
+		var remaining = count;
+		while (remaining > 0) {
+			final var block = blocks[length >>> BLOCK_SHIFT];
+			final var position = length & BLOCK_MASK;
+			final var n = Math.min(remaining, BLOCK_SIZE - position);
+			System.arraycopy(chars, index, block, position, n);
+			indexLines(block, position, n);
+			length += n;
+			index += n;
+			remaining -= n;
+		}
+	}
+
+	/**
+	 * Appends the String to the end of the buffer.
+	 *
+	 * @param text The String to append.
+	 */
+	public void append(final String text) {
+		final var count = text.length();
+		ensureCapacity(count);
+		var index = 0;
+		while (index < count) {
+			final var block = blocks[length >>> BLOCK_SHIFT];
+			final var position = length & BLOCK_MASK;
+			final var n = Math.min(count - index, BLOCK_SIZE - position);
+			text.getChars(index, index + n, block, position);
+			indexLines(block, position, n);
+			length += n;
+			index += n;
+		}
+	}
+
+	/**
+	 * @param index The offset of the wrapped byte.
+	 * @return Returns the character of the byte, or {@link #LOST} if the byte
+	 *         can't be read anymore.
+	 */
+	private char byteAt(final int index) {
+		if (index >= readable) {
+			return LOST;
+		}
+		try {
+			return (char) (bytes.get(index) & 0xFF);
+		} catch (final InternalError e) {
+			truncated();
+			return index < readable ? (char) (bytes.get(index) & 0xFF) : LOST;
+		}
+	}
+
+	/**
+	 * @param index The offset of the character.
+	 * @return Returns the character at the offset.
+	 */
+	public char charAt(final int index) {
+		if (bytes != null) {
+			return byteAt(index);
+		}
+		return blocks[index >>> BLOCK_SHIFT][index & BLOCK_MASK];
+	}
+
+	/**
+	 * Makes sure that there is enough space for the characters.
+	 *
+	 * @param count The amount of characters which will be appended.
+	 */
+	private void ensureCapacity(final int count) {
+		if (bytes != null) {
+			throw new UnsupportedOperationException("Buffer is read-only"); //$NON-NLS-1$
+		}
+		if (count > Integer.MAX_VALUE - length) {
+			throw new IllegalArgumentException("Text is too large"); //$NON-NLS-1$
+		}
+		final var needed = (int) (((long) length + count + BLOCK_MASK) >>> BLOCK_SHIFT);
+		if (needed <= blocks.length) {
+			return;
+		}
+		final var old = blocks.length;
+		blocks = Arrays.copyOf(blocks, needed);
+		for (var i = old; i < needed; i++) {
+			blocks[i] = new char[BLOCK_SIZE];
+		}
+	}
+
+	/**
+	 * Copies the characters of the range into the destination array.
+	 *
+	 * @param start    The offset of the first character.
+	 * @param end      The offset after the last character.
+	 * @param dst      The destination array.
+	 * @param dstBegin The start offset in the destination array.
+	 */
+	public void getChars(final int start, final int end, final char[] dst, final int dstBegin) {
+		if (bytes != null) {
+			for (var i = start; i < end; i++) {
+				dst[dstBegin + i - start] = byteAt(i);
+			}
+			return;
+		}
+		var index = start;
+		var target = dstBegin;
+		while (index < end) {
+			final var position = index & BLOCK_MASK;
+			final var n = Math.min(end - index, BLOCK_SIZE - position);
+			System.arraycopy(blocks[index >>> BLOCK_SHIFT], position, dst, target, n);
+			index += n;
+			target += n;
+		}
+	}
+
+	/**
+	 * Records the line starts of the appended characters.<br>
+	 * A \r\n which is split between two appends is still counted as one line
+	 * delimiter.
+	 *
+	 * @param block    The block of the characters.
+	 * @param position The position of the first character in the block.
+	 * @param count    The amount of appended characters.
+	 */
+	private void indexLines(final char[] block, final int position, final int count) {
+		final var base = length - position;
+		for (var i = position; i < position + count; i++) {
+			final var c = block[i];
+			if (c == '\n') {
+				final var offset = base + i;
+				if (lineStartCount > 0 && lineStarts[lineStartCount - 1] == offset && offset > 0
+						&& charAt(offset - 1) == '\r') {
+					lineStarts[lineStartCount - 1] = offset + 1;
+				} else {
+					addLineStart(offset + 1);
+				}
+			} else if (c == '\r') {
+				addLineStart(base + i + 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds an offset to the line starts.
+	 *
+	 * @param offset The offset after a line delimiter.
+	 */
+	private void addLineStart(final int offset) {
+		if (lineStartCount == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, lineStartCount + (lineStartCount >> 1));
+		}
+		lineStarts[lineStartCount++] = offset;
+	}
+
+	/**
+	 * @return Return length.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns the line start which follows the given offset.
+	 *
+	 * @param from The offset after which the line starts are counted.
+	 * @param n    The number of the line start, beginning with 1.
+	 * @return Returns the offset of the n-th line start after the offset.
+	 */
+	int lineStart(final int from, final int n) {
+		return lineStarts[upperBound(from) + n - 1];
+	}
+
+	/**
+	 * Counts the line starts between the two offsets, both exclusive.
+	 *
+	 * @param from The start offset.
+	 * @param to   The end offset.
+	 * @return Returns the amount of line starts in the range.
+	 */
+	int lineStarts(final int from, final int to) {
+		if (to - from < 2) {
+			return 0;
+		}
+		return upperBound(to - 1) - upperBound(from);
+	}
+
+	/**
+	 * Finds the first wrapped byte which can't be read anymore, after the
+	 * mapped file was truncated. The bytes before the new end of the file stay
+	 * readable, so the limit is found by a binary search.
+	 */
+	private synchronized void truncated() {
+		var low = 0;
+		var high = readable;
+		while (low < high) {
+			final var mid = (low + high) >>> 1;
+			try {
+				bytes.get(mid);
+				low = mid + 1;
+			} catch (final InternalError e) {
+				high = mid;
+			}
+		}
+		readable = low;
+	}
+
+	/**
+	 * @param offset The offset to search for.
+	 * @return Returns the index of the first line start after the offset.
+	 */
+	private int upperBound(final int offset) {
+		var low = 0;
+		var high = lineStartCount;
+		while (low < high) {
+			final var mid = (low + high) >>> 1;
+			if (lineStarts[mid] <= offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,791 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyledTextContent;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+
+/**
+ * The text model of the styled text widget.<br>
+ * The text is a piece table: the pieces point into the buffer of the opened
+ * file or into the buffer of the added text, and the buffers only grow. The
+ * pieces are kept in a balanced tree, which sums up the characters and the
+ * line starts of every subtree. So offset and line lookups as well as edits
+ * take logarithmic time, whatever the size of the text.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class TextContent implements StyledTextContent {
+
+	/**
+	 * A node of the tree, which holds one piece.<br>
+	 * The nodes are immutable, every change creates new nodes on the path to the
+	 * root.
+	 */
+	private static final class Node {
+
+		/** The buffer of the characters. */
+		private final TextBuffer buffer;
+
+		/** The offset of the first character in the buffer. */
+		private final int start;
+
+		/** The amount of characters of the piece. */
+		private final int count;
+
+		/** The amount of line starts inside and at the end of the piece. */
+		private final int lines;
+
+		/** The left subtree. */
+		private final Node left;
+
+		/** The right subtree. */
+		private final Node right;
+
+		/** The random priority of the node. */
+		private final int priority;
+
+		/** The amount of characters of the subtree. */
+		private final int length;
+
+		/** The amount of line starts of the subtree. */
+		private final int breaks;
+
+		/** True if the first character of the subtree is a \n. */
+		private final boolean firstLF;
+
+		/** True if the last character of the subtree is a \r. */
+		private final boolean lastCR;
+
+		/**
+		 * Creates a new leaf with a new piece.
+		 *
+		 * @param buffer The buffer of the characters.
+		 * @param start  The offset of the first character in the buffer.
+		 * @param count  The amount of characters.
+		 */
+		private Node(final TextBuffer buffer, final int start, final int count) {
+			this(buffer, start, count, lines(buffer, start, count), null, null, ThreadLocalRandom.current().nextInt());
+		}
+
+		/**
+		 * Creates a new node with the given parameters.
+		 *
+		 * @param buffer   The buffer of the characters.
+		 * @param start    The offset of the first character in the buffer.
+		 * @param count    The amount of characters.
+		 * @param lines    The amount of line starts of the piece.
+		 * @param left     The left subtree.
+		 * @param right    The right subtree.
+		 * @param priority The priority of the node.
+		 */
+		private Node(final TextBuffer buffer, final int start, final int count, final int lines, final Node left,
+				final Node right, final int priority) {
+			this.buffer = buffer;
+			this.start = start;
+			this.count = count;
+			this.lines = lines;
+			this.left = left;
+			this.right = right;
+			this.priority = priority;
+
+			final var first = buffer.charAt(start) == '\n';
+			final var last = buffer.charAt(start + count - 1) == '\r';
+			var sum = lines;
+			if (left != null) {
+				sum += left.breaks - (left.lastCR && first ? 1 : 0);
+			}
+			if (right != null) {
+				sum += right.breaks - (last && right.firstLF ? 1 : 0);
+			}
+			this.length = count + length(left) + length(right);
+			this.breaks = sum;
+			this.firstLF = left != null ? left.firstLF : first;
+			this.lastCR = right != null ? right.lastCR : last;
+		}
+
+		/**
+		 * @return Returns true if the first character of the piece is a \n.
+		 */
+		private boolean pieceFirstLF() {
+			return buffer.charAt(start) == '\n';
+		}
+
+		/**
+		 * @return Returns true if the last character of the piece is a \r.
+		 */
+		private boolean pieceLastCR() {
+			return buffer.charAt(start + count - 1) == '\r';
+		}
+
+		/**
+		 * @param newLeft  The new left subtree.
+		 * @param newRight The new right subtree.
+		 * @return Returns a copy of the node with other subtrees.
+		 */
+		private Node with(final Node newLeft, final Node newRight) {
+			return new Node(buffer, start, count, lines, newLeft, newRight, priority);
+		}
+	}
+
+	/**
+	 * An unchangeable view of the text at the time it was taken.<br>
+	 * Taking a snapshot costs nothing, because the tree is never changed in
+	 * place. A snapshot may be read by another thread, but one instance must not
+	 * be shared between threads, because it caches the last read piece.
+	 */
+	public static final class Snapshot implements CharSequence {
+
+		/** The tree of the text. */
+		private final Node root;
+
+		/** The offset of the view in the text. */
+		private final int offset;
+
+		/** The amount of characters of the view. */
+		private final int length;
+
+		/** The buffer of the cached piece. */
+		private TextBuffer buffer;
+
+		/** The offset of the cached piece in the buffer. */
+		private int bufferStart;
+
+		/** The offset of the cached piece in the text. */
+		private int pieceStart;
+
+		/** The offset after the cached piece in the text. */
+		private int pieceEnd;
+
+		/**
+		 * Creates a new view of the tree.
+		 *
+		 * @param root   The tree of the text.
+		 * @param offset The offset of the view in the text.
+		 * @param length The amount of characters of the view.
+		 */
+		private Snapshot(final Node root, final int offset, final int length) {
+			this.root = root;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			final var position = offset + index;
+			if (position < pieceStart || position >= pieceEnd) {
+				var node = root;
+				var nodeStart = 0;
+				while (true) {
+					final var leftLength = TextContent.length(node.left);
+					final var start = nodeStart + leftLength;
+					if (position < start) {
+						node = node.left;
+					} else if (position < start + node.count) {
+						buffer = node.buffer;
+						bufferStart = node.start;
+						pieceStart = start;
+						pieceEnd = start + node.count;
+						break;
+					} else {
+						nodeStart = start + node.count;
+						node = node.right;
+					}
+				}
+			}
+			return buffer.charAt(bufferStart + position - pieceStart);
+		}
+
+		/**
+		 * Copies characters of the view into the destination array.
+		 *
+		 * @param start    The index of the first character.
+		 * @param end      The index after the last character.
+		 * @param dst      The destination array.
+		 * @param dstBegin The start offset in the destination array.
+		 */
+		public void getChars(final int start, final int end, final char[] dst, final int dstBegin) {
+			if (start < 0 || start > end || end > length) {
+				throw new IndexOutOfBoundsException(end);
+			}
+			TextContent.getChars(root, 0, offset + start, offset + end, dst, dstBegin);
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public Snapshot subSequence(final int start, final int end) {
+			if (start < 0 || start > end || end > length) {
+				throw new IndexOutOfBoundsException(end);
+			}
+			return new Snapshot(root, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			final var chars = new char[length];
+			getChars(0, length, chars, 0);
+			return new String(chars);
+		}
+	}
+
+	/**
+	 * @param c The character to check.
+	 * @return Returns true if the character is part of a line delimiter.
+	 */
+	private static boolean isDelimiter(final char c) {
+		return c == '\r' || c == '\n';
+	}
+
+	/**
+	 * Appends characters of the buffer to the last piece of the tree.
+	 *
+	 * @param node  The tree.
+	 * @param extra The amount of characters which follow the last piece in its
+	 *              buffer.
+	 * @return Returns the changed tree.
+	 */
+	private static Node extendLast(final Node node, final int extra) {
+		if (node.right != null) {
+			return node.with(node.left, extendLast(node.right, extra));
+		}
+		final var count = node.count + extra;
+		return new Node(node.buffer, node.start, count, lines(node.buffer, node.start, count), node.left, null,
+				node.priority);
+	}
+
+	/**
+	 * @param node The tree.
+	 * @return Returns the node of the last piece.
+	 */
+	private static Node last(final Node node) {
+		var last = node;
+		while (last.right != null) {
+			last = last.right;
+		}
+		return last;
+	}
+
+	/**
+	 * @param node The root of a subtree or null.
+	 * @return Returns the amount of characters of the subtree.
+	 */
+	private static int length(final Node node) {
+		return node == null ? 0 : node.length;
+	}
+
+	/**
+	 * Counts the line starts of a piece, a delimiter at the end of the piece is
+	 * counted too.
+	 *
+	 * @param buffer The buffer of the characters.
+	 * @param start  The offset of the first character in the buffer.
+	 * @param count  The amount of characters.
+	 * @return Returns the amount of line starts.
+	 */
+	private static int lines(final TextBuffer buffer, final int start, final int count) {
+		return buffer.lineStarts(start, start + count) + (isDelimiter(buffer.charAt(start + count - 1)) ? 1 : 0);
+	}
+
+	/**
+	 * Counts the line delimiters of the String.
+	 *
+	 * @param text The String to count.
+	 * @return Returns the amount of line delimiters.
+	 */
+	private static int lineCount(final String text) {
+		var count = 0;
+		final var length = text.length();
+		for (var i = 0; i < length; i++) {
+			final var c = text.charAt(i);
+			if (c == '\r') {
+				if (i + 1 < length && text.charAt(i + 1) == '\n') {
+					i++;
+				}
+				count++;
+			} else if (c == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Joins two trees, all characters of the first tree come first.
+	 *
+	 * @param a The first tree or null.
+	 * @param b The second tree or null.
+	 * @return Returns the joined tree.
+	 */
+	private static Node merge(final Node a, final Node b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			return a.with(a.left, merge(a.right, b));
+		}
+		return b.with(merge(a, b.left), b.right);
+	}
+
+	/**
+	 * Splits the tree at the offset, the piece at the offset is split in two.
+	 *
+	 * @param node   The tree to split.
+	 * @param offset The offset of the split.
+	 * @param result Receives the tree before and the tree after the offset.
+	 */
+	private static void split(final Node node, final int offset, final Node[] result) {
+		if (node == null) {
+			result[0] = null;
+			result[1] = null;
+			return;
+		}
+		final var leftLength = length(node.left);
+		if (offset <= leftLength) {
+			split(node.left, offset, result);
+			result[1] = node.with(result[1], node.right);
+			return;
+		}
+		final var inside = offset - leftLength;
+		if (inside >= node.count) {
+			split(node.right, inside - node.count, result);
+			result[0] = node.with(node.left, result[0]);
+			return;
+		}
+		final var tail = node.count - inside;
+		result[0] = new Node(node.buffer, node.start, inside, lines(node.buffer, node.start, inside), node.left, null,
+				node.priority);
+		result[1] = new Node(node.buffer, node.start + inside, tail, lines(node.buffer, node.start + inside, tail),
+				null, node.right, node.priority);
+	}
+
+	/** The listeners of the text changes. */
+	private final List<TextChangeListener> listeners = new ArrayList<>();
+
+	/** The root of the piece tree or null if the text is empty. */
+	private Node root;
+
+	/** The buffer of the added text. */
+	private TextBuffer added = new TextBuffer();
+
+	/** The line delimiter of the text or null if the text has none yet. */
+	private String lineDelimiter;
+
+	/** Public empty constructor. */
+	public TextContent() {
+	}
+
+	@Override
+	public void addTextChangeListener(final TextChangeListener listener) {
+		if (listener == null) {
+			SWT.error(SWT.ERROR_NULL_ARGUMENT);
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Appends all characters of the buffer to the end of the text, without
+	 * copying them.<br>
+	 * The buffer must not be changed afterwards. The text of the changing event
+	 * is null, so the characters are never joined to a String.
+	 *
+	 * @param buffer The buffer which contains the characters.
+	 */
+	public void append(final TextBuffer buffer) {
+		final var count = buffer.length();
+		if (count == 0) {
+			return;
+		}
+		final var changing = new TextChangingEvent(this);
+		changing.start = getCharCount();
+		changing.newCharCount = count;
+		changing.newLineCount = lines(buffer, 0, count)
+				- (root != null && root.lastCR && buffer.charAt(0) == '\n' ? 1 : 0);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanging(changing);
+		}
+
+		root = merge(root, new Node(buffer, 0, count));
+		detectLineDelimiter();
+
+		final var changed = new TextChangedEvent(this);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanged(changed);
+		}
+	}
+
+	/**
+	 * @param offset The offset of the character.
+	 * @return Returns the character at the offset.
+	 */
+	public char charAt(final int offset) {
+		if (offset < 0 || offset >= getCharCount()) {
+			throw new IndexOutOfBoundsException(offset);
+		}
+		var node = root;
+		var position = offset;
+		while (true) {
+			final var leftLength = length(node.left);
+			if (position < leftLength) {
+				node = node.left;
+			} else if (position < leftLength + node.count) {
+				return node.buffer.charAt(node.start + position - leftLength);
+			} else {
+				position -= leftLength + node.count;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Copies the characters of the range into the destination array.
+	 *
+	 * @param node     The subtree which contains the range.
+	 * @param position The offset of the subtree in the text.
+	 * @param start    The offset of the first character.
+	 * @param end      The offset after the last character.
+	 * @param dst      The destination array.
+	 * @param dstBegin The index in the destination array for the start offset.
+	 */
+	private static void getChars(final Node node, final int position, final int start, final int end,
+			final char[] dst, final int dstBegin) {
+		if (node == null || end <= position || start >= position + node.length) {
+			return;
+		}
+		final var pieceStart = position + length(node.left);
+		final var pieceEnd = pieceStart + node.count;
+		getChars(node.left, position, start, end, dst, dstBegin);
+		final var from = Math.max(start, pieceStart);
+		final var to = Math.min(end, pieceEnd);
+		if (from < to) {
+			node.buffer.getChars(node.start + from - pieceStart, node.start + to - pieceStart, dst,
+					dstBegin + from - start);
+		}
+		getChars(node.right, pieceEnd, start, end, dst, dstBegin);
+	}
+
+	/**
+	 * Takes the first line delimiter of the text as line delimiter, if there is
+	 * none yet. A \r at the end of the text isn't taken, because the \n of a
+	 * \r\n may still be appended.
+	 */
+	private void detectLineDelimiter() {
+		if (lineDelimiter != null || root == null || root.breaks == 0) {
+			return;
+		}
+		final var start = getOffsetAtLine(1);
+		if (charAt(start - 1) == '\n') {
+			lineDelimiter = start > 1 && charAt(start - 2) == '\r' ? "\r\n" : "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+		} else if (start < getCharCount()) {
+			lineDelimiter = "\r"; //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public int getCharCount() {
+		return length(root);
+	}
+
+	@Override
+	public String getLine(final int index) {
+		final var start = getOffsetAtLine(index);
+		var end = index + 1 < getLineCount() ? getOffsetAtLine(index + 1) : getCharCount();
+		while (end > start && isDelimiter(charAt(end - 1))) {
+			end--;
+		}
+		return getTextRange(start, end - start);
+	}
+
+	@Override
+	public int getLineAtOffset(final int offset) {
+		final var charCount = getCharCount();
+		if (offset < 0 || offset > charCount) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+		if (offset == charCount) {
+			return getLineCount() - 1;
+		}
+		var node = root;
+		var position = offset;
+		var line = 0;
+		var lastCR = false;
+		while (true) {
+			final var left = node.left;
+			if (left != null) {
+				if (position < left.length) {
+					node = left;
+					continue;
+				}
+				line += left.breaks - (lastCR && left.firstLF ? 1 : 0);
+				lastCR = left.lastCR;
+				position -= left.length;
+			}
+			if (lastCR && node.pieceFirstLF()) {
+				line--;
+			}
+			if (position < node.count) {
+				return line + node.buffer.lineStarts(node.start, node.start + position + 1);
+			}
+			line += node.lines;
+			lastCR = node.pieceLastCR();
+			position -= node.count;
+			node = node.right;
+		}
+	}
+
+	@Override
+	public int getLineCount() {
+		return root == null ? 1 : root.breaks + 1;
+	}
+
+	/**
+	 * Returns the line delimiter of the text.<br>
+	 * It is the first line delimiter of the opened file, so new lines are
+	 * written the same way. A text without a line delimiter uses the delimiter
+	 * of the system.
+	 */
+	@Override
+	public String getLineDelimiter() {
+		return lineDelimiter != null ? lineDelimiter : System.lineSeparator();
+	}
+
+	@Override
+	public int getOffsetAtLine(final int lineIndex) {
+		if (lineIndex < 0 || lineIndex >= getLineCount()) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+		if (lineIndex == 0) {
+			return 0;
+		}
+		var node = root;
+		var target = lineIndex;
+		var position = 0;
+		var nextLF = false;
+		while (true) {
+			final var left = node.left;
+			final var pieceFirstLF = node.pieceFirstLF();
+			if (left != null) {
+				final var leftLines = left.breaks - (left.lastCR && pieceFirstLF ? 1 : 0);
+				if (target <= leftLines) {
+					nextLF = pieceFirstLF;
+					node = left;
+					continue;
+				}
+				target -= leftLines;
+				position += left.length;
+			}
+			final var followingLF = node.right != null ? node.right.firstLF : nextLF;
+			final var pieceLines = node.lines - (node.pieceLastCR() && followingLF ? 1 : 0);
+			if (target <= pieceLines) {
+				if (target <= node.buffer.lineStarts(node.start, node.start + node.count)) {
+					return position + node.buffer.lineStart(node.start, target) - node.start;
+				}
+				return position + node.count;
+			}
+			target -= pieceLines;
+			position += node.count;
+			node = node.right;
+		}
+	}
+
+	@Override
+	public String getTextRange(final int start, final int length) {
+		if (start < 0 || length < 0 || start + length > getCharCount()) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+		final var chars = new char[length];
+		getChars(root, 0, start, start + length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * @param offset The offset to check.
+	 * @return Returns true if the offset is between a \r and a \n.
+	 */
+	private boolean isInsideCRLF(final int offset) {
+		return offset > 0 && offset < getCharCount() && charAt(offset - 1) == '\r' && charAt(offset) == '\n';
+	}
+
+	/**
+	 * @param snapshot A snapshot of this content.
+	 * @return Returns true if the text has not changed since the snapshot.
+	 */
+	public boolean isCurrent(final Snapshot snapshot) {
+		return snapshot.root == root;
+	}
+
+	@Override
+	public void removeTextChangeListener(final TextChangeListener listener) {
+		if (listener == null) {
+			SWT.error(SWT.ERROR_NULL_ARGUMENT);
+		}
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void replaceTextRange(final int start, final int replaceLength, final String text) {
+		if (start < 0 || replaceLength < 0 || start + replaceLength > getCharCount() || isInsideCRLF(start)
+				|| (replaceLength > 0 && isInsideCRLF(start + replaceLength))) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+
+		final var changing = new TextChangingEvent(this);
+		changing.start = start;
+		changing.newText = text;
+		changing.replaceCharCount = replaceLength;
+		changing.newCharCount = text.length();
+		changing.replaceLineCount = replaceLength > 0
+				? getLineAtOffset(start + replaceLength) - getLineAtOffset(start)
+				: 0;
+		changing.newLineCount = lineCount(text);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanging(changing);
+		}
+
+		final var parts = new Node[2];
+		split(root, start, parts);
+		var head = parts[0];
+		split(parts[1], replaceLength, parts);
+		final var tail = parts[1];
+		if (!text.isEmpty()) {
+			final var end = added.length();
+			added.append(text);
+			final var last = head != null ? last(head) : null;
+			if (last != null && last.buffer == added && last.start + last.count == end) {
+				head = extendLast(head, text.length());
+			} else {
+				head = merge(head, new Node(added, end, text.length()));
+			}
+		}
+		root = merge(head, tail);
+
+		final var changed = new TextChangedEvent(this);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanged(changed);
+		}
+	}
+
+	/**
+	 * Replaces a range of the text with characters of the buffer, without
+	 * copying them.<br>
+	 * The characters of the buffer must not be changed afterwards. The text of
+	 * the changing event is null, so the characters are never joined to a
+	 * String.
+	 *
+	 * @param start         The offset of the first replaced character.
+	 * @param replaceLength The amount of replaced characters.
+	 * @param buffer        The buffer which contains the new characters.
+	 * @param from          The offset of the first new character in the buffer.
+	 * @param count         The amount of new characters.
+	 */
+	public void replaceTextRange(final int start, final int replaceLength, final TextBuffer buffer, final int from,
+			final int count) {
+		if (start < 0 || replaceLength < 0 || start + replaceLength > getCharCount() || isInsideCRLF(start)
+				|| (replaceLength > 0 && isInsideCRLF(start + replaceLength)) || from < 0 || count < 0
+				|| from + count > buffer.length()) {
+			SWT.error(SWT.ERROR_INVALID_ARGUMENT);
+		}
+
+		final var parts = new Node[2];
+		split(root, start, parts);
+		final var head = parts[0];
+		split(parts[1], replaceLength, parts);
+		final var changedRoot = merge(count > 0 ? merge(head, new Node(buffer, from, count)) : head, parts[1]);
+
+		final var changing = new TextChangingEvent(this);
+		changing.start = start;
+		changing.replaceCharCount = replaceLength;
+		changing.newCharCount = count;
+		changing.replaceLineCount = replaceLength > 0
+				? getLineAtOffset(start + replaceLength) - getLineAtOffset(start)
+				: 0;
+		changing.newLineCount = (changedRoot != null ? changedRoot.breaks : 0) - (root != null ? root.breaks : 0)
+				+ changing.replaceLineCount;
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanging(changing);
+		}
+
+		root = changedRoot;
+		detectLineDelimiter();
+
+		final var changed = new TextChangedEvent(this);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textChanged(changed);
+		}
+	}
+
+	/**
+	 * @return Returns an unchangeable view of the current text.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(root, 0, getCharCount());
+	}
+
+	/**
+	 * Sets the line delimiter for new lines, the text isn't changed.
+	 *
+	 * @param lineDelimiter The line delimiter.
+	 */
+	public void setLineDelimiter(final String lineDelimiter) {
+		this.lineDelimiter = lineDelimiter;
+	}
+
+	/**
+	 * Replaces the whole text with the characters of the buffer.
+	 *
+	 * @param buffer The buffer which contains the new text.
+	 */
+	public void setText(final TextBuffer buffer) {
+		root = buffer.length() > 0 ? new Node(buffer, 0, buffer.length()) : null;
+		added = new TextBuffer();
+		lineDelimiter = null;
+		detectLineDelimiter();
+
+		final var event = new TextChangedEvent(this);
+		for (final var listener : List.copyOf(listeners)) {
+			listener.textSet(event);
+		}
+	}
+
+	@Override
+	public void setText(final String text) {
+		final var buffer = new TextBuffer();
+		buffer.append(text);
+		setText(buffer);
+	}
+}
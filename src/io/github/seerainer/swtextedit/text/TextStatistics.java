@@ -0,0 +1,272 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.text;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
+/**
+ * Counts the words of the text and of the selected text for the status bar.
+ * <br>
+ * A word starts at every character which is not whitespace and follows
+ * whitespace or the start of the text. So an edit only changes the word starts
+ * in the replaced range and at the character after it, and the count is kept
+ * up to date from the change alone. Large changes, a new text and large
+ * selections are counted on a virtual thread from a snapshot, while counting
+ * the number of words is unknown. The line and the character counts come from
+ * the line index of the text content.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class TextStatistics implements TextChangeListener {
+
+	/** Number of characters which are read at once. */
+	private static final int BLOCK = 1 << 14;
+
+	/** Changes and selections with more characters are counted on a thread. */
+	private static final int SYNC_LIMIT = 1 << 16;
+
+	/** The text widget. */
+	private final StyledText text;
+
+	/** Called on the UI thread if a count on a thread has finished. */
+	private final Runnable counted;
+
+	/** The number of words of the text, without the running counts. */
+	private int words;
+
+	/** The number of running counts of the text. */
+	private int counting;
+
+	/** The text before the running change. */
+	private Snapshot before;
+
+	/** The offset of the running change. */
+	private int start;
+
+	/** The number of replaced characters of the running change. */
+	private int replaced;
+
+	/** The number of words in the replaced range, or -1 for a large change. */
+	private int replacedWords;
+
+	/** The text of the selection count. */
+	private Snapshot selection;
+
+	/** The offset of the counted selection. */
+	private int selectionStart;
+
+	/** The offset after the counted selection. */
+	private int selectionEnd;
+
+	/** The number of words of the selection or -1 while counting. */
+	private int selectionWords;
+
+	/** The number of the current text, changed only by the UI thread. */
+	private volatile int generation;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param text    The text widget.
+	 * @param counted Called on the UI thread if a count on a thread has finished.
+	 */
+	public TextStatistics(final StyledText text, final Runnable counted) {
+		this.text = text;
+		this.counted = counted;
+	}
+
+	/**
+	 * Counts on a virtual thread and hands the result to the UI thread.
+	 *
+	 * @param count  Counts the words, the result of a cancelled count is dropped.
+	 * @param result Gets the number of words on the UI thread, if the text was
+	 *               not set again meanwhile.
+	 */
+	private void background(final IntSupplier count, final IntConsumer result) {
+		final var display = text.getDisplay();
+		final var current = generation;
+		Thread.ofVirtual().start(() -> {
+			final var words1 = count.getAsInt();
+			if (display.isDisposed()) {
+				return;
+			}
+			try {
+				display.asyncExec(() -> {
+					if (current == generation) {
+						result.accept(words1);
+						counted.run();
+					}
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Counts the word starts in a range of the text.
+	 *
+	 * @param snapshot The text.
+	 * @param from     The offset of the range.
+	 * @param to       The offset after the range.
+	 * @param space    True if the range starts after whitespace.
+	 * @param current  The number of the text, the count is cancelled if it
+	 *                 changes.
+	 * @return Return the number of words or -1 if the count was cancelled.
+	 */
+	private int count(final Snapshot snapshot, final int from, final int to, final boolean space,
+			final int current) {
+		final var buffer = new char[Math.min(BLOCK, Math.max(0, to - from))];
+		var count = 0;
+		var whitespace = space;
+		for (var start = from; start < to; start += BLOCK) {
+			if (current != generation) {
+				return -1;
+			}
+			final var end = Math.min(to, start + BLOCK);
+			snapshot.getChars(start, end, buffer, 0);
+			for (var i = 0; i < end - start; i++) {
+				final var c = Character.isWhitespace(buffer[i]);
+				if (whitespace && !c) {
+					count++;
+				}
+				whitespace = c;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the word starts of the text which an edit can change.
+	 *
+	 * @param snapshot The text.
+	 * @param start    The offset of the edit.
+	 * @param count    The number of characters of the edit.
+	 * @param current  The number of the text.
+	 * @return Return the number of words or -1 if the count was cancelled.
+	 */
+	private int count(final Snapshot snapshot, final int start, final int count, final int current) {
+		final var end = Math.min(start + count + 1, snapshot.length());
+		return count(snapshot, start, end, start == 0 || Character.isWhitespace(snapshot.charAt(start - 1)), current);
+	}
+
+	/**
+	 * @param start The offset of the selection.
+	 * @param end   The offset after the selection.
+	 * @return Return the number of words of the selection or -1 while they are
+	 *         counted.
+	 */
+	public int getSelectionWords(final int start, final int end) {
+		final var content = (TextContent) text.getContent();
+		if (end <= start) {
+			return 0;
+		}
+		if (end - start == content.getCharCount()) {
+			return getWords();
+		}
+		if (end - start <= SYNC_LIMIT) {
+			return count(content.snapshot(), start, end, true, generation);
+		}
+		if (selection == null || !content.isCurrent(selection) || selectionStart != start || selectionEnd != end) {
+			final var key = content.snapshot();
+			final var snapshot = content.snapshot();
+			final var current = generation;
+			selection = key;
+			selectionStart = start;
+			selectionEnd = end;
+			selectionWords = -1;
+			background(() -> count(snapshot, start, end, true, current), words1 -> {
+				if (selection == key) {
+					selectionWords = words1;
+				}
+			});
+		}
+		return selectionWords;
+	}
+
+	/**
+	 * @return Return the number of words of the text or -1 while they are
+	 *         counted.
+	 */
+	public int getWords() {
+		return counting > 0 ? -1 : words;
+	}
+
+	@Override
+	public void textChanged(final TextChangedEvent event) {
+		final var after = ((TextContent) text.getContent()).snapshot();
+		final var inserted = after.length() - before.length() + replaced;
+		final var current = generation;
+		if (replacedWords >= 0 && inserted <= SYNC_LIMIT) {
+			words += count(after, start, inserted, current) - replacedWords;
+		} else {
+			final var old = before;
+			final var offset = start;
+			final var count = replaced;
+			counting++;
+			background(() -> count(after, offset, inserted, current) - count(old, offset, count, current),
+					result -> {
+						words += result;
+						counting--;
+					});
+		}
+		before = null;
+	}
+
+	@Override
+	public void textChanging(final TextChangingEvent event) {
+		before = ((TextContent) text.getContent()).snapshot();
+		start = event.start;
+		replaced = event.replaceCharCount;
+		replacedWords = replaced <= SYNC_LIMIT && event.newCharCount <= SYNC_LIMIT
+				? count(before, start, replaced, generation)
+				: -1;
+	}
+
+	@Override
+	public void textSet(final TextChangedEvent event) {
+		generation++;
+		words = 0;
+		counting = 0;
+		selection = null;
+		final var snapshot = ((TextContent) text.getContent()).snapshot();
+		if (snapshot.length() <= SYNC_LIMIT) {
+			words = count(snapshot, 0, snapshot.length(), true, generation);
+			return;
+		}
+		final var current = generation;
+		counting++;
+		background(() -> count(snapshot, 0, snapshot.length(), true, current), result -> {
+			words += result;
+			counting--;
+		});
+	}
+}
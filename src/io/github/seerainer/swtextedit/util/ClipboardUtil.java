@@ -0,0 +1,86 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.util;
+
+import org.eclipse.swt.dnd.Clipboard;
+import org.eclipse.swt.dnd.TextTransfer;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Tracks if the clipboard contains text, for enabling the paste items.<br>
+ * Only the available types are queried, not the text itself, and only if the
+ * shell is activated, a menu is shown or the text was cut or copied. Typing
+ * uses the cached state.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class ClipboardUtil {
+
+	/** The clipboard of the display, created with the first query. */
+	private Clipboard clipboard;
+
+	/** True if the clipboard contained text at the last query. */
+	private boolean text;
+
+	/** Public empty constructor. */
+	public ClipboardUtil() {
+	}
+
+	/**
+	 * Disposes the clipboard.
+	 */
+	public void dispose() {
+		if (clipboard != null && !clipboard.isDisposed()) {
+			clipboard.dispose();
+		}
+		clipboard = null;
+	}
+
+	/**
+	 * @return Returns true if the clipboard contained text at the last query.
+	 */
+	public boolean hasText() {
+		return text;
+	}
+
+	/**
+	 * Queries the types of the clipboard contents.
+	 *
+	 * @param display The display of the clipboard.
+	 */
+	public void update(final Display display) {
+		if (display.isDisposed()) {
+			return;
+		}
+		if (clipboard == null || clipboard.isDisposed()) {
+			clipboard = new Clipboard(display);
+		}
+		final var transfer = TextTransfer.getInstance();
+		text = false;
+		for (final var type : clipboard.getAvailableTypes()) {
+			if (transfer.isSupportedType(type)) {
+				text = true;
+				break;
+			}
+		}
+	}
+}
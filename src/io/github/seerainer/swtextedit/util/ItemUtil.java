@@ -21,13 +21,11 @@
  */
 package io.github.seerainer.swtextedit.util;
 
-import java.util.List;
-
 import org.eclipse.swt.custom.StyledText;
-import org.eclipse.swt.dnd.Clipboard;
-import org.eclipse.swt.dnd.TextTransfer;
 import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.ToolBar;
+import org.eclipse.swt.widgets.ToolItem;
 
 import io.github.seerainer.swtextedit.config.ConfigData;
 
@@ -39,33 +37,58 @@ import io.github.seerainer.swtextedit.config.ConfigData;
 public final class ItemUtil {
 
 	/**
-	 * Enables / disables the edit menu items.
+	 * Enables or disables the menu item, if its state has changed.
+	 *
+	 * @param item    The menu item.
+	 * @param enabled The new state of the menu item.
+	 */
+	private static void enable(final MenuItem item, final boolean enabled) {
+		if (item.getEnabled() != enabled) {
+			item.setEnabled(enabled);
+		}
+	}
+
+	/**
+	 * Enables or disables the tool item, if its state has changed.
+	 *
+	 * @param item    The tool item.
+	 * @param enabled The new state of the tool item.
+	 */
+	private static void enable(final ToolItem item, final boolean enabled) {
+		if (item.getEnabled() != enabled) {
+			item.setEnabled(enabled);
+		}
+	}
+
+	/**
+	 * Enables / disables the edit menu items.<br>
+	 * Only the items whose state has changed are set, so an unchanged state costs
+	 * no update of the native widgets.
 	 *
 	 * @param menu       The parent of the menu items.
 	 * @param toolBar    The parent of the tool items.
 	 * @param configData Instance of the configuration values.
 	 * @param text       The Instance of the text widget.
-	 * @param undoStack  The list which save all undo actions.
-	 * @param redoStack  The list which save all redo actions.
+	 * @param undoUtil   The undo / redo entries.
+	 * @param clipboard  The cached state of the clipboard.
 	 */
 	public static void enableMenuItems(final Menu menu, final ToolBar toolBar, final ConfigData configData,
-			final StyledText text, final List<?> undoStack, final List<?> redoStack) {
+			final StyledText text, final UndoUtil undoUtil, final ClipboardUtil clipboard) {
 		final var count = text.getSelectionCount();
 		final var charCount = text.getCharCount();
-		menu.getItem(0).setEnabled(undoStack.size() > 0); // undo
-		menu.getItem(1).setEnabled(redoStack.size() > 0); // redo
-		menu.getItem(3).setEnabled(count > 0); // cut
-		menu.getItem(4).setEnabled(count > 0); // copy
-		menu.getItem(5).setEnabled(
-				(String) (new Clipboard(menu.getDisplay()).getContents(TextTransfer.getInstance())) != null); // paste
-		menu.getItem(6).setEnabled(count > 0); // delete
-		menu.getItem(8).setEnabled(charCount > 0); // select all
-		menu.getItem(9).setEnabled(charCount > 0); // delete all
+		enable(menu.getItem(0), undoUtil.canUndo()); // undo
+		enable(menu.getItem(1), undoUtil.canRedo()); // redo
+		enable(menu.getItem(3), count > 0); // cut
+		enable(menu.getItem(4), count > 0); // copy
+		enable(menu.getItem(5), clipboard.hasText()); // paste
+		enable(menu.getItem(6), count > 0); // delete
+		enable(menu.getItem(8), charCount > 0); // select all
+		enable(menu.getItem(9), charCount > 0); // delete all
 
 		if (menu.getItemCount() > 10) {
-			menu.getItem(11).setEnabled(count > 0 || charCount > 0); // uppercase
-			menu.getItem(12).setEnabled(count > 0 || charCount > 0); // lowercase
-			menu.getItem(14).setEnabled(count > 0 || charCount > 0); // trim
+			enable(menu.getItem(11), count > 0 || charCount > 0); // uppercase
+			enable(menu.getItem(12), count > 0 || charCount > 0); // lowercase
+			enable(menu.getItem(14), count > 0 || charCount > 0); // trim
 		}
 
 		enableToolItems(toolBar, menu, configData);
@@ -79,13 +102,13 @@ public final class ItemUtil {
 	 * @param configData Instance of the configuration values.
 	 */
 	private static void enableToolItems(final ToolBar tool, final Menu menu, final ConfigData configData) {
-		tool.getItem(2).setEnabled(configData.isHasChanged()); // save
-		tool.getItem(5).setEnabled(menu.getItem(0).isEnabled()); // undo
-		tool.getItem(6).setEnabled(menu.getItem(1).isEnabled()); // redo
-		tool.getItem(8).setEnabled(menu.getItem(3).isEnabled()); // cut
-		tool.getItem(9).setEnabled(menu.getItem(4).isEnabled()); // copy
-		tool.getItem(10).setEnabled(menu.getItem(5).isEnabled()); // paste
-		tool.getItem(11).setEnabled(menu.getItem(6).isEnabled()); // delete
+		enable(tool.getItem(2), configData.isHasChanged()); // save
+		enable(tool.getItem(5), menu.getItem(0).getEnabled()); // undo
+		enable(tool.getItem(6), menu.getItem(1).getEnabled()); // redo
+		enable(tool.getItem(8), menu.getItem(3).getEnabled()); // cut
+		enable(tool.getItem(9), menu.getItem(4).getEnabled()); // copy
+		enable(tool.getItem(10), menu.getItem(5).getEnabled()); // paste
+		enable(tool.getItem(11), menu.getItem(6).getEnabled()); // delete
 	}
 
 	/** Private empty constructor. */
@@ -0,0 +1,86 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.util;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Coalesces the updates of the menu items and the status bar.<br>
+ * Events only mark the state as dirty and the state is computed again at most
+ * once per frame, so holding a key in a large text doesn't update the items
+ * and the labels for every key.
+ *
+ * @author philipp@seerainer.com
+ */
+public final class RefreshUtil implements Runnable {
+
+	/** The time of one frame in milliseconds. */
+	private static final int FRAME = 16;
+
+	/** The display which runs the update. */
+	private final Display display;
+
+	/** Computes the state of the items and the labels. */
+	private final Runnable update;
+
+	/** True if the update is scheduled. */
+	private boolean scheduled;
+
+	/**
+	 * Creates a new instance of the class with the given parameters.
+	 *
+	 * @param display The display which runs the update.
+	 * @param update  Computes the state of the items and the labels.
+	 */
+	public RefreshUtil(final Display display, final Runnable update) {
+		this.display = display;
+		this.update = update;
+	}
+
+	/**
+	 * Runs a scheduled update at once, e.g. before a menu is shown.
+	 */
+	public void now() {
+		if (scheduled) {
+			display.timerExec(-1, this);
+		}
+		run();
+	}
+
+	@Override
+	public void run() {
+		scheduled = false;
+		if (!display.isDisposed()) {
+			update.run();
+		}
+	}
+
+	/**
+	 * Marks the state as dirty, the update runs with the next frame.
+	 */
+	public void schedule() {
+		if (!scheduled && !display.isDisposed()) {
+			scheduled = true;
+			display.timerExec(FRAME, this);
+		}
+	}
+}
@@ -21,10 +21,16 @@
  */
 package io.github.seerainer.swtextedit.util;
 
+import java.util.ResourceBundle;
+
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.text.TextStatistics;
+
 /**
  * Utility class for the statusbar.
  *
@@ -32,6 +38,153 @@ import org.eclipse.swt.widgets.Label;
  */
 public final class StatusBarUtil {
 
+	/**
+	 * Shows the progress of a task on a worker thread in the status bar, until
+	 * the task is stopped.
+	 */
+	public static final class Progress implements Runnable {
+
+		/** The interval of the progress in milliseconds. */
+		private static final int INTERVAL = 200;
+
+		/** The label which shows the progress, may be null. */
+		private final Label lab;
+
+		/** The text in front of the percentage. */
+		private final String message;
+
+		/** The finished part of the task, set by the worker thread. */
+		private volatile long done;
+
+		/** The whole task, set by the worker thread. */
+		private volatile long total;
+
+		/** True if the task is finished. */
+		private boolean stopped;
+
+		/**
+		 * Creates a new instance of the class with the given parameters.
+		 *
+		 * @param lab     The label which shows the progress, may be null.
+		 * @param message The text in front of the percentage.
+		 * @param total   The whole task.
+		 */
+		public Progress(final Label lab, final String message, final long total) {
+			this.lab = lab;
+			this.message = message;
+			this.total = total;
+		}
+
+		@Override
+		public void run() {
+			if (stopped || lab == null || lab.isDisposed()) {
+				return;
+			}
+			progress(lab, message, done, total);
+			lab.getDisplay().timerExec(INTERVAL, this);
+		}
+
+		/**
+		 * Sets the progress, may be called by any thread.
+		 *
+		 * @param done The finished part of the task.
+		 */
+		public void set(final long done) {
+			this.done = done;
+		}
+
+		/**
+		 * Sets the progress, may be called by any thread.
+		 *
+		 * @param done  The finished part of the task.
+		 * @param total The whole task.
+		 */
+		public void set(final long done, final long total) {
+			this.total = total;
+			this.done = done;
+		}
+
+		/**
+		 * Starts showing the progress after the first interval, so short tasks
+		 * don't show it at all.
+		 *
+		 * @param display The display of the label.
+		 */
+		public void start(final Display display) {
+			display.timerExec(INTERVAL, this);
+		}
+
+		/**
+		 * Stops showing the progress.
+		 */
+		public void stop() {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * Output the line delimiter of the text in the status bar.
+	 *
+	 * @param lab       The label of the line delimiter.
+	 * @param delimiter The line delimiter of the text.
+	 */
+	public static void delimiter(final Label lab, final String delimiter) {
+		final var name = switch (delimiter) {
+		case "\r\n" -> "CRLF"; //$NON-NLS-1$ //$NON-NLS-2$
+		case "\r" -> "CR"; //$NON-NLS-1$ //$NON-NLS-2$
+		default -> "LF"; //$NON-NLS-1$
+		};
+		text(lab, name);
+	}
+
+	/**
+	 * Output the character encoding of the text in the status bar.
+	 *
+	 * @param lab      The label of the character encoding.
+	 * @param encoding The character encoding of the text.
+	 */
+	public static void encoding(final Label lab, final FileEncoding encoding) {
+		text(lab, encoding.toString());
+	}
+
+	/**
+	 * Shows the progress of a background task in the status bar.
+	 *
+	 * @param lab     The label which shows the progress.
+	 * @param message The text in front of the percentage.
+	 * @param done    The finished part of the task.
+	 * @param total   The whole task.
+	 */
+	public static void progress(final Label lab, final String message, final long done, final long total) {
+		lab.setText(message + " " + (total > 0 ? done * 100 / total : 100) + " %"); //$NON-NLS-1$ //$NON-NLS-2$
+		lab.setToolTipText(lab.getText());
+	}
+
+	/**
+	 * Output the number of lines and words of the text, or of the selected text,
+	 * in the status bar.
+	 *
+	 * @param lab        The label of the statistics.
+	 * @param text       The text widget.
+	 * @param statistics The word count of the text.
+	 * @param langRes    The language file.
+	 */
+	public static void statistics(final Label lab, final StyledText text, final TextStatistics statistics,
+			final ResourceBundle langRes) {
+		final var selection = text.getSelection();
+		final int lines;
+		final int words;
+		if (selection.y > selection.x) {
+			lines = text.getLineAtOffset(selection.y) - text.getLineAtOffset(selection.x) + 1;
+			words = statistics.getSelectionWords(selection.x, selection.y);
+		} else {
+			lines = text.getLineCount();
+			words = statistics.getWords();
+		}
+		text(lab, lines + " " + langRes.getString("status_lines") + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ (words < 0 ? "..." : Integer.toString(words)) + " " + langRes.getString("status_words")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
 	/**
 	 * Output some information about the text in the status bar.
 	 *
@@ -49,31 +202,30 @@ public final class StatusBarUtil {
 			final int keycode, final StyledText text, final String file) {
 
 		final var caretOffset = text.getCaretOffset();
+		final var line = text.getLineAtOffset(caretOffset);
 
-		if (file == null) {
-			lab1.setText(""); //$NON-NLS-1$
-		} else {
-			lab1.setText(file);
-		}
+		text(lab1, file == null ? "" : file); //$NON-NLS-1$
 
 		if (keycode == SWT.INSERT) {
-			if ("INS".equals(lab2.getText())) { //$NON-NLS-1$
-				lab2.setText("OVR"); //$NON-NLS-1$
-			} else {
-				lab2.setText("INS"); //$NON-NLS-1$
-			}
+			text(lab2, "INS".equals(lab2.getText()) ? "OVR" : "INS"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
 
-		lab3.setText(caretOffset + " / " + text.getCharCount()); //$NON-NLS-1$
-		lab4.setText((text.getLineAtOffset(caretOffset) + 1) + " / " //$NON-NLS-1$
-				+ (caretOffset - text.getOffsetAtLine(text.getLineAtOffset(caretOffset)) + 1));
-		lab5.setText(Integer.toString(text.getSelectionCount()));
+		text(lab3, caretOffset + " / " + text.getCharCount()); //$NON-NLS-1$
+		text(lab4, (line + 1) + " / " + (caretOffset - text.getOffsetAtLine(line) + 1)); //$NON-NLS-1$
+		text(lab5, Integer.toString(text.getSelectionCount()));
+	}
 
-		lab1.setToolTipText(lab1.getText());
-		lab2.setToolTipText(lab2.getText());
-		lab3.setToolTipText(lab3.getText());
-		lab4.setToolTipText(lab4.getText());
-		lab5.setToolTipText(lab5.getText());
+	/**
+	 * Sets the text and the tooltip of the label, if the text has changed.
+	 *
+	 * @param lab  The label of the status bar.
+	 * @param text The new text of the label.
+	 */
+	private static void text(final Label lab, final String text) {
+		if (!text.equals(lab.getText())) {
+			lab.setText(text);
+			lab.setToolTipText(text);
+		}
 	}
 
 	/** Private empty constructor. */
@@ -21,15 +21,51 @@
  */
 package io.github.seerainer.swtextedit.util;
 
+import java.util.function.UnaryOperator;
+
 import org.eclipse.swt.custom.StyledText;
 
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
+
 /**
- * Utility class for string operations.
+ * Utility class for string operations.<br>
+ * A selection is replaced as one change. The whole text is streamed from a
+ * snapshot chunk by chunk into a new buffer instead, so it is never copied
+ * into one String, and the changed range becomes one undo entry.
  *
  * @author philipp@seerainer.com
  */
 public final class StringUtil {
 
+	/** The size of the converted chunks in characters. */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Copies the text chunk by chunk into a new buffer and converts every
+	 * chunk. A chunk never ends between the two characters of a surrogate pair.
+	 *
+	 * @param text       The text to convert.
+	 * @param conversion The conversion of a chunk.
+	 * @return Returns the buffer of the converted text.
+	 */
+	private static TextBuffer convert(final Snapshot text, final UnaryOperator<String> conversion) {
+		final var buffer = new TextBuffer();
+		final var chunk = new char[CHUNK_SIZE];
+		final var length = text.length();
+		for (var position = 0; position < length;) {
+			var count = Math.min(CHUNK_SIZE, length - position);
+			text.getChars(position, position + count, chunk, 0);
+			if (count > 1 && position + count < length && Character.isHighSurrogate(chunk[count - 1])) {
+				count--;
+			}
+			buffer.append(conversion.apply(new String(chunk, 0, count)));
+			position += count;
+		}
+		return buffer;
+	}
+
 	/**
 	 * Checks if the String is empty.
 	 *
@@ -46,32 +82,61 @@ public final class StringUtil {
 	/**
 	 * Converts the text or the selected text to lowercase.
 	 *
-	 * @param text StyledText widget, contains the text.
+	 * @param text     StyledText widget, contains the text.
+	 * @param undoUtil Records the change of the whole text.
 	 * @return Returns the StyledText widget.
 	 */
-	public static StyledText lowercase(final StyledText text) {
+	public static StyledText lowercase(final StyledText text, final UndoUtil undoUtil) {
 		final var range = text.getSelectionRange();
 		if (range.y > 0) {
 			text.replaceTextRange(range.x, range.y, text.getSelectionText().toLowerCase());
 		} else {
-			text.setText(text.getText().toLowerCase());
+			setText(text, convert(((TextContent) text.getContent()).snapshot(), String::toLowerCase), undoUtil);
 		}
 
 		return text;
 	}
 
+	/**
+	 * Replaces the whole text with the buffer as one undo entry, the caret and
+	 * the top line are kept.
+	 *
+	 * @param text     StyledText widget, contains the text.
+	 * @param buffer   The buffer of the new text.
+	 * @param undoUtil Records the change of the whole text.
+	 */
+	private static void setText(final StyledText text, final TextBuffer buffer, final UndoUtil undoUtil) {
+		final var top = text.getTopIndex();
+		final var caret = text.getCaretOffset();
+		undoUtil.replace(text, buffer);
+		text.setCaretOffset(Math.min(caret, text.getCharCount()));
+		text.setTopIndex(top);
+	}
+
 	/**
 	 * Trimming leading and trailing whitespace of the text or the selected text.
 	 *
-	 * @param text StyledText widget, contains the text.
+	 * @param text     StyledText widget, contains the text.
+	 * @param undoUtil Records the change of the whole text.
 	 * @return Returns the StyledText widget.
 	 */
-	public static StyledText trim(final StyledText text) {
+	public static StyledText trim(final StyledText text, final UndoUtil undoUtil) {
 		final var range = text.getSelectionRange();
 		if (range.y > 0) {
 			text.replaceTextRange(range.x, range.y, text.getSelectionText().trim());
 		} else {
-			text.setText(text.getText().trim());
+			final var snapshot = ((TextContent) text.getContent()).snapshot();
+			var end = snapshot.length();
+			var start = 0;
+			while (start < end && snapshot.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && snapshot.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			if (start > 0 || end < snapshot.length()) {
+				setText(text, convert(snapshot.subSequence(start, end), UnaryOperator.identity()), undoUtil);
+			}
 		}
 
 		return text;
@@ -80,15 +145,16 @@ public final class StringUtil {
 	/**
 	 * Converts the text or the selected text to uppercase.
 	 *
-	 * @param text StyledText widget, contains the text.
+	 * @param text     StyledText widget, contains the text.
+	 * @param undoUtil Records the change of the whole text.
 	 * @return Returns the StyledText widget.
 	 */
-	public static StyledText uppercase(final StyledText text) {
+	public static StyledText uppercase(final StyledText text, final UndoUtil undoUtil) {
 		final var range = text.getSelectionRange();
 		if (range.y > 0) {
 			text.replaceTextRange(range.x, range.y, text.getSelectionText().toUpperCase());
 		} else {
-			text.setText(text.getText().toUpperCase());
+			setText(text, convert(((TextContent) text.getContent()).snapshot(), String::toUpperCase), undoUtil);
 		}
 
 		return text;
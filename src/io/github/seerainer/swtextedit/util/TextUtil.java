@@ -21,9 +21,19 @@
  */
 package io.github.seerainer.swtextedit.util;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.function.IntConsumer;
+
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Label;
 
 import io.github.seerainer.swtextedit.config.ConfigData;
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
 
 /**
  * Utility class for the styled text widget.
@@ -32,6 +42,164 @@ import io.github.seerainer.swtextedit.config.ConfigData;
  */
 public final class TextUtil {
 
+	/** The size of the converted chunks in characters. */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Copies the text chunk by chunk into a new buffer, every line delimiter is
+	 * replaced by the given one.
+	 *
+	 * @param text      The text to convert.
+	 * @param delimiter The new line delimiter.
+	 * @param progress  Gets the number of converted characters after every chunk.
+	 * @return Returns the buffer of the converted text.
+	 */
+	private static TextBuffer convert(final Snapshot text, final String delimiter, final IntConsumer progress) {
+		final var buffer = new TextBuffer();
+		final var in = new char[CHUNK_SIZE];
+		final var out = new char[CHUNK_SIZE * 2];
+		final var first = delimiter.charAt(0);
+		final var second = delimiter.length() > 1;
+		final var length = text.length();
+		var cr = false;
+		for (var position = 0; position < length; position += CHUNK_SIZE) {
+			final var count = Math.min(CHUNK_SIZE, length - position);
+			text.getChars(position, position + count, in, 0);
+			var n = 0;
+			for (var i = 0; i < count; i++) {
+				final var c = in[i];
+				if (c == '\r' || c == '\n' && !cr) {
+					out[n++] = first;
+					if (second) {
+						out[n++] = '\n';
+					}
+				} else if (c != '\n') {
+					out[n++] = c;
+				}
+				cr = c == '\r';
+			}
+			buffer.append(out, 0, n);
+			progress.accept(position + count);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Converts all line delimiters of the text on a worker thread.<br>
+	 * The text is streamed from a snapshot into a new buffer, which replaces
+	 * the text as one undo entry if it was not edited in the meantime.
+	 *
+	 * @param text      The styled text widget.
+	 * @param delimiter The new line delimiter.
+	 * @param status    The label of the status bar for the progress, may be null.
+	 * @param message   The text in front of the percentage.
+	 * @param undoUtil  Records the change of the text.
+	 * @param converted Runs on the UI thread if the text was replaced.
+	 */
+	public static void lineDelimiter(final StyledText text, final String delimiter, final Label status,
+			final String message, final UndoUtil undoUtil, final Runnable converted) {
+		final var content = (TextContent) text.getContent();
+		final var snapshot = content.snapshot();
+		final var display = text.getDisplay();
+		final var progress = new StatusBarUtil.Progress(status, message, snapshot.length());
+		Thread.ofVirtual().start(() -> {
+			final var buffer = convert(snapshot, delimiter, progress::set);
+			try {
+				display.asyncExec(() -> {
+					progress.stop();
+					if (text.isDisposed() || !content.isCurrent(snapshot)) {
+						return;
+					}
+					final var top = text.getTopIndex();
+					final var line = text.getLineAtOffset(text.getCaretOffset());
+					final var column = text.getCaretOffset() - text.getOffsetAtLine(line);
+					undoUtil.replace(text, buffer);
+					content.setLineDelimiter(delimiter);
+					final var start = text.getOffsetAtLine(line);
+					final var end = line + 1 < text.getLineCount()
+							? text.getOffsetAtLine(line + 1) - delimiter.length()
+							: text.getCharCount();
+					text.setCaretOffset(Math.min(start + column, end));
+					text.setTopIndex(top);
+					converted.run();
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+		progress.start(display);
+	}
+
+	/**
+	 * Counts the characters of the text which can't be encoded, on a virtual
+	 * thread.<br>
+	 * The text is encoded chunk by chunk into a reused buffer and the bytes are
+	 * thrown away, so the memory stays the same for every size of the text.
+	 *
+	 * @param text    The text widget which contains the text.
+	 * @param charset The character encoding to check.
+	 * @param status  The label of the status bar for the progress, may be null.
+	 * @param message The text in front of the percentage.
+	 * @param counted Gets the number of characters on the UI thread.
+	 */
+	public static void unmappable(final StyledText text, final Charset charset, final Label status,
+			final String message, final IntConsumer counted) {
+		final var snapshot = ((TextContent) text.getContent()).snapshot();
+		final var display = text.getDisplay();
+		final var progress = new StatusBarUtil.Progress(status, message, snapshot.length());
+		Thread.ofVirtual().start(() -> {
+			final var count = unmappable(snapshot, charset, progress::set);
+			try {
+				display.asyncExec(() -> {
+					progress.stop();
+					if (!text.isDisposed()) {
+						counted.accept(count);
+					}
+				});
+			} catch (final SWTException e) {
+				e.printStackTrace();
+			}
+		});
+		progress.start(display);
+	}
+
+	/**
+	 * Counts the characters of the text which can't be encoded.
+	 *
+	 * @param text     The text to check.
+	 * @param charset  The character encoding to check.
+	 * @param progress Gets the number of checked characters after every chunk.
+	 * @return Returns the number of characters which can't be encoded.
+	 */
+	private static int unmappable(final Snapshot text, final Charset charset, final IntConsumer progress) {
+		final var encoder = charset.newEncoder();
+		final var chunk = CharBuffer.allocate(CHUNK_SIZE);
+		final var bytes = ByteBuffer.allocate(CHUNK_SIZE);
+		final var length = text.length();
+		var count = 0;
+		var position = 0;
+		do {
+			final var n = Math.min(chunk.remaining(), length - position);
+			text.getChars(position, position + n, chunk.array(), chunk.position());
+			chunk.position(chunk.position() + n);
+			position += n;
+			chunk.flip();
+			final var endOfInput = position == length;
+			var result = encoder.encode(chunk, bytes, endOfInput);
+			while (result.isOverflow() || result.isError()) {
+				if (result.isError()) {
+					count++;
+					chunk.position(chunk.position() + result.length());
+				}
+				bytes.clear();
+				result = encoder.encode(chunk, bytes, endOfInput);
+			}
+			chunk.compact();
+			progress.accept(position);
+		} while (position < length);
+		return count;
+	}
+
 	/**
 	 * Wraps the lines of the styled text widget.
 	 *
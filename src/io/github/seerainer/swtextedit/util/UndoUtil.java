@@ -21,111 +21,714 @@
  */
 package io.github.seerainer.swtextedit.util;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Event;
+
+import io.github.seerainer.swtextedit.text.TextBuffer;
+import io.github.seerainer.swtextedit.text.TextContent;
+import io.github.seerainer.swtextedit.text.TextContent.Snapshot;
 
 /**
  * Utility class for the Undo / Redo action.
  *
+ * The entries are kept in a ring of primitive records. The removed and the
+ * inserted characters of all entries share one character arena, in the order
+ * of the entries. Typing and deleting single characters at adjacent offsets
+ * extends the last entry. The oldest entries are dropped when the retained
+ * memory exceeds the limit. Large entries are written to a temporary file and
+ * only read again for undo or redo. The temporary file has a limit of its own,
+ * and it is compacted when the evicted entries at its start take more space
+ * than the retained ones. If an entry can't be read, the undo or redo is
+ * aborted and the text stays unchanged. The entries of the temporary file are
+ * read back chunk by chunk into a buffer, which becomes a piece of the text.
+ *
  * @author philipp@seerainer.com
  */
 public final class UndoUtil {
 
+	/** Maximum number of characters which are coalesced into one entry. */
+	private static final int MAX_RUN = 256;
+
+	/** Initial size of the character arena. */
+	private static final int ARENA_SIZE = 1 << 12;
+
+	/** Maximum size of the character arena. */
+	private static final int MAX_ARENA = 1 << 30;
+
+	/** Initial number of entries in the ring. */
+	private static final int RING_SIZE = 64;
+
+	/** Memory in bytes of one entry in the ring. */
+	private static final int RECORD_BYTES = 21;
+
+	/** Size in bytes of the buffer for the temporary file. */
+	private static final int SPILL_BUFFER = 1 << 16;
+
+	/** Maximum memory in bytes of the retained entries. */
+	private final long memoryLimit;
+
+	/** Entries with at least this number of characters go to the temporary file. */
+	private final int spillSize;
+
+	/** Maximum size in bytes of the retained entries in the temporary file. */
+	private final long diskLimit;
+
+	/** Offsets of the entries in the text. */
+	private int[] offsets = new int[RING_SIZE];
+
+	/** Number of removed characters of the entries. */
+	private int[] removed = new int[RING_SIZE];
+
+	/** Number of inserted characters of the entries. */
+	private int[] inserted = new int[RING_SIZE];
+
+	/** Positions of the entries in the arena or in the temporary file. */
+	private long[] positions = new long[RING_SIZE];
+
+	/** True if the removed characters of an entry were deleted backwards. */
+	private boolean[] backward = new boolean[RING_SIZE];
+
+	/** True if the characters of an entry are in the temporary file. */
+	private boolean[] spilled = new boolean[RING_SIZE];
+
+	/** The removed and inserted characters of all entries in memory. */
+	private char[] arena = new char[ARENA_SIZE];
+
+	/** Position in the arena for the next characters. */
+	private long head;
+
+	/** Position in the arena of the oldest characters. */
+	private long tail;
+
+	/** Temporary file for the characters of large entries. */
+	private FileChannel spill;
+
+	/** Buffer for writing and reading the temporary file. */
+	private ByteBuffer spillBuffer;
+
+	/** Position in characters in the temporary file for the next entry. */
+	private long spillHead;
+
+	/** Position in characters in the temporary file of the oldest entry. */
+	private long spillTail;
+
+	/** Number of entries in the temporary file. */
+	private int spilledCount;
+
+	/** Ring index of the oldest entry. */
+	private int first;
+
+	/** Number of entries. */
+	private int count;
+
+	/** Number of entries which can be undone. */
+	private int cursor;
+
+	/** True if the next modification may not extend the last entry. */
+	private boolean sealed;
+
 	/**
-	 * Redo function of the styled text.
+	 * Creates a new instance of the class with the given parameters.
 	 *
-	 * @param redoStack  The list which save all redo actions.
-	 * @param undoStack  The list which save all undo actions.
-	 * @param styledText The text widget for the undo function.
+	 * @param memoryLimit The maximum memory in bytes of the retained entries.
+	 * @param spillSize   The number of characters from which an entry is written
+	 *                    to a temporary file, 0 to keep all entries in memory.
+	 * @param diskLimit   The maximum size in bytes of the retained entries in the
+	 *                    temporary file.
+	 */
+	public UndoUtil(final long memoryLimit, final int spillSize, final long diskLimit) {
+		this.memoryLimit = memoryLimit;
+		this.spillSize = spillSize;
+		this.diskLimit = diskLimit;
+	}
+
+	/**
+	 * Adds a modification of the text.
+	 *
+	 * @param offset       The offset of the modification.
+	 * @param replacedText The removed text.
+	 * @param newText      The inserted text.
 	 */
-	public static void redo(final List<UndoUtil> redoStack, final List<UndoUtil> undoStack,
-			final StyledText styledText) {
-		if (redoStack.size() <= 0) {
+	public void add(final int offset, final CharSequence replacedText, final CharSequence newText) {
+		final var r = replacedText.length();
+		final var n = newText.length();
+		if (r == 0 && n == 0) {
 			return;
 		}
-		final var lastEdit = redoStack.remove(0);
-		final var text = lastEdit.getText().length();
-		final var caret = lastEdit.getCaret();
+		if (cursor < count) {
+			truncate();
+		}
+		if (!sealed && count > 0 && extend(offset, r, n, r > 0 ? replacedText.charAt(0) : newText.charAt(0))) {
+			return;
+		}
+		final var size = (long) r + n;
+		final var toFile = spillSize > 0 && size >= spillSize && size * 2 <= diskLimit
+				&& write(replacedText, newText);
+		if (!toFile && (size > MAX_ARENA || size * 2 + RECORD_BYTES > memoryLimit)) {
+			clear();
+			return;
+		}
+		if (!toFile) {
+			reserve((int) size);
+		}
+		if (count == offsets.length) {
+			grow();
+		}
+		final var i = index(count++);
+		cursor = count;
+		offsets[i] = offset;
+		removed[i] = r;
+		inserted[i] = n;
+		backward[i] = false;
+		spilled[i] = toFile;
+		if (toFile) {
+			spilledCount++;
+			positions[i] = spillHead;
+			spillHead += size;
+		} else {
+			positions[i] = head;
+			put(replacedText);
+			put(newText);
+		}
+		sealed = n > 0 && isDelimiter(newText.charAt(n - 1));
+		while (count > 1 && (retained() > memoryLimit || (spillHead - spillTail) * 2 > diskLimit)) {
+			evict();
+		}
+		if (spillTail > 0 && spillTail >= spillHead - spillTail) {
+			compact();
+		}
+	}
+
+	/**
+	 * @return Return true if an entry can be redone.
+	 */
+	public boolean canRedo() {
+		return cursor < count;
+	}
+
+	/**
+	 * @return Return true if an entry can be undone.
+	 */
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		first = 0;
+		count = 0;
+		cursor = 0;
+		head = 0;
+		tail = 0;
+		spillHead = 0;
+		spillTail = 0;
+		spilledCount = 0;
+		sealed = false;
+		if (arena.length > ARENA_SIZE) {
+			arena = new char[ARENA_SIZE];
+		}
+		if (spill != null) {
+			try {
+				spill.truncate(0);
+			} catch (final IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Moves the retained entries of the temporary file to its start and cuts
+	 * off the rest. If the file fails, all entries are removed, because they
+	 * can't be read correctly anymore.
+	 */
+	private void compact() {
+		final var shift = spillTail * 2;
 		try {
-			if (lastEdit.isReplaced()) {
-				styledText.replaceTextRange(caret, text, ""); //$NON-NLS-1$
-			} else {
-				styledText.replaceTextRange(caret - text, 0, lastEdit.getText());
+			for (var position = shift; position < spillHead * 2;) {
+				spillBuffer.clear().limit((int) Math.min(SPILL_BUFFER, spillHead * 2 - position));
+				while (spillBuffer.hasRemaining()) {
+					if (spill.read(spillBuffer, position + spillBuffer.position()) < 0) {
+						throw new IOException("Unexpected end of file"); //$NON-NLS-1$
+					}
+				}
+				spillBuffer.flip();
+				while (spillBuffer.hasRemaining()) {
+					spill.write(spillBuffer, position - shift + spillBuffer.position());
+				}
+				position += spillBuffer.limit();
 			}
-		} catch (final IllegalArgumentException e) {
+			spill.truncate(spillHead * 2 - shift);
+		} catch (final IOException e) {
 			e.printStackTrace();
+			clear();
+			return;
+		}
+		for (var k = 0; k < count; k++) {
+			final var i = index(k);
+			if (spilled[i]) {
+				positions[i] -= spillTail;
+			}
 		}
-		undoStack.add(0, lastEdit);
+		spillHead -= spillTail;
+		spillTail = 0;
 	}
 
 	/**
-	 * Undo function of the styled text.
+	 * Removes all entries and deletes the temporary file.
+	 */
+	public void dispose() {
+		clear();
+		if (spill != null) {
+			try {
+				spill.close();
+			} catch (final IOException e) {
+				e.printStackTrace();
+			}
+			spill = null;
+		}
+	}
+
+	/**
+	 * Removes the oldest entry.
+	 */
+	private void evict() {
+		if (!spilled[first]) {
+			tail = positions[first] + removed[first] + inserted[first];
+		} else if (--spilledCount == 0) {
+			spillHead = 0;
+			spillTail = 0;
+		} else {
+			spillTail = positions[first] + removed[first] + inserted[first];
+		}
+		first = index(1);
+		count--;
+		cursor--;
+	}
+
+	/**
+	 * Extends the last entry with a single typed or deleted character.
 	 *
-	 * @param undoStack  The list which save all undo actions.
-	 * @param redoStack  The list which save all redo actions.
-	 * @param styledText The text widget for the undo function.
+	 * @param offset The offset of the modification.
+	 * @param r      The number of removed characters.
+	 * @param n      The number of inserted characters.
+	 * @param c      The typed or deleted character.
+	 * @return Return true if the last entry was extended.
+	 */
+	private boolean extend(final int offset, final int r, final int n, final char c) {
+		final var i = index(count - 1);
+		if (r + n != 1 || isDelimiter(c) || spilled[i] || head - tail >= MAX_ARENA) {
+			return false;
+		}
+		if (n == 1) {
+			if (inserted[i] == 0 || inserted[i] >= MAX_RUN || offsets[i] + inserted[i] != offset) {
+				return false;
+			}
+			inserted[i]++;
+		} else {
+			if (inserted[i] != 0 || removed[i] >= MAX_RUN) {
+				return false;
+			}
+			if (offset + 1 == offsets[i] && (removed[i] == 1 || backward[i])) {
+				backward[i] = true;
+				offsets[i] = offset;
+			} else if (offset != offsets[i] || backward[i]) {
+				return false;
+			}
+			removed[i]++;
+		}
+		reserve(1);
+		arena[(int) (head++ & (arena.length - 1))] = c;
+		return true;
+	}
+
+	/**
+	 * Copies characters of a String or a snapshot of the text into the
+	 * destination array.
+	 *
+	 * @param s        The characters to copy.
+	 * @param start    The index of the first character.
+	 * @param end      The index after the last character.
+	 * @param dst      The destination array.
+	 * @param dstBegin The start offset in the destination array.
 	 */
-	public static void undo(final List<UndoUtil> undoStack, final List<UndoUtil> redoStack,
-			final StyledText styledText) {
-		if (undoStack.size() <= 0) {
+	private static void getChars(final CharSequence s, final int start, final int end, final char[] dst,
+			final int dstBegin) {
+		if (s instanceof final Snapshot snapshot) {
+			snapshot.getChars(start, end, dst, dstBegin);
+		} else {
+			s.toString().getChars(start, end, dst, dstBegin);
+		}
+	}
+
+	/**
+	 * Doubles the number of entries of the ring.
+	 */
+	private void grow() {
+		final var size = offsets.length << 1;
+		final var split = offsets.length - first;
+		offsets = grow(offsets, new int[size], split);
+		removed = grow(removed, new int[size], split);
+		inserted = grow(inserted, new int[size], split);
+		positions = grow(positions, new long[size], split);
+		backward = grow(backward, new boolean[size], split);
+		spilled = grow(spilled, new boolean[size], split);
+		first = 0;
+	}
+
+	/**
+	 * Copies the entries of the ring, starting with the oldest.
+	 *
+	 * @param <T>   The type of the array.
+	 * @param src   The array with the entries.
+	 * @param dst   The larger array for the entries.
+	 * @param split The number of entries from the oldest to the end of the array.
+	 * @return Return the larger array.
+	 */
+	private <T> T grow(final T src, final T dst, final int split) {
+		System.arraycopy(src, first, dst, 0, split);
+		System.arraycopy(src, 0, dst, split, first);
+		return dst;
+	}
+
+	/**
+	 * @param k The number of the entry, starting with the oldest.
+	 * @return Return the ring index of the entry.
+	 */
+	private int index(final int k) {
+		return (first + k) % offsets.length;
+	}
+
+	/**
+	 * @param c The character to check.
+	 * @return Return true if the character is a line delimiter.
+	 */
+	private static boolean isDelimiter(final char c) {
+		return c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Writes the characters to the arena.
+	 *
+	 * @param s The characters to write.
+	 */
+	private void put(final CharSequence s) {
+		final var mask = arena.length - 1;
+		final var length = s.length();
+		final var pos = (int) (head & mask);
+		final var split = Math.min(length, arena.length - pos);
+		getChars(s, 0, split, arena, pos);
+		getChars(s, split, length, arena, 0);
+		head += length;
+	}
+
+	/**
+	 * Reads characters of an entry in the arena.
+	 *
+	 * @param i       The ring index of the entry.
+	 * @param skip    The number of characters of the entry to skip.
+	 * @param length  The number of characters.
+	 * @param reverse True to return the characters in reverse order.
+	 * @return Return the characters as string.
+	 */
+	private String read(final int i, final int skip, final int length, final boolean reverse) {
+		final var chars = new char[length];
+		final var pos = (int) ((positions[i] + skip) & (arena.length - 1));
+		final var split = Math.min(length, arena.length - pos);
+		System.arraycopy(arena, pos, chars, 0, split);
+		System.arraycopy(arena, 0, chars, split, length - split);
+		if (reverse) {
+			for (int a = 0, b = length - 1; a < b; a++, b--) {
+				final var c = chars[a];
+				chars[a] = chars[b];
+				chars[b] = c;
+			}
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Reads characters of an entry in the temporary file chunk by chunk into a
+	 * new buffer, so they are never copied into one String.
+	 *
+	 * @param i      The ring index of the entry.
+	 * @param skip   The number of characters of the entry to skip.
+	 * @param length The number of characters.
+	 * @return Return the buffer of the characters.
+	 * @throws IOException If the temporary file can't be read.
+	 */
+	private TextBuffer readSpilled(final int i, final int skip, final int length) throws IOException {
+		final var buffer = new TextBuffer();
+		final var chars = new char[SPILL_BUFFER / 2];
+		var position = (positions[i] + skip) * 2;
+		for (var done = 0; done < length;) {
+			spillBuffer.clear().limit(Math.min(SPILL_BUFFER, (length - done) * 2));
+			while (spillBuffer.hasRemaining()) {
+				if (spill.read(spillBuffer, position + spillBuffer.position()) < 0) {
+					throw new IOException("Unexpected end of file"); //$NON-NLS-1$
+				}
+			}
+			final var chunk = spillBuffer.flip().asCharBuffer();
+			final var k = chunk.remaining();
+			chunk.get(chars, 0, k);
+			buffer.append(chars, 0, k);
+			done += k;
+			position += k * 2;
+		}
+		return buffer;
+	}
+
+	/**
+	 * Redo function of the styled text.
+	 *
+	 * @param styledText The text widget for the redo function.
+	 */
+	public void redo(final StyledText styledText) {
+		if (cursor >= count) {
+			return;
+		}
+		final var i = index(cursor);
+		final TextBuffer buffer;
+		try {
+			buffer = spilled[i] ? readSpilled(i, removed[i], inserted[i]) : null;
+		} catch (final IOException e) {
+			e.printStackTrace();
 			return;
 		}
-		final var lastEdit = undoStack.remove(0);
-		final var text = lastEdit.getText().length();
-		final var caret = lastEdit.getCaret();
+		cursor++;
 		try {
-			if (lastEdit.isReplaced()) {
-				styledText.replaceTextRange(caret, 0, lastEdit.getText());
+			if (buffer != null) {
+				splice(styledText, offsets[i], removed[i], buffer, 0, inserted[i]);
 			} else {
-				styledText.replaceTextRange(caret - text, text, ""); //$NON-NLS-1$
+				styledText.replaceTextRange(offsets[i], removed[i], read(i, removed[i], inserted[i], false));
 			}
+			styledText.setCaretOffset(offsets[i] + inserted[i]);
+			styledText.showSelection();
 		} catch (final IllegalArgumentException e) {
 			e.printStackTrace();
 		}
-		redoStack.add(0, lastEdit);
+		sealed = true;
 	}
 
-	/** Instance of the boolean value if the text was replaced. */
-	private final boolean replaced;
+	/**
+	 * Replaces the whole text of the styled text with the buffer as one entry.
+	 * <br>
+	 * Only the range between the common start and the common end of the old
+	 * and the new text is replaced, so the entry holds only the changed
+	 * characters and the rest of the text keeps its pieces.
+	 *
+	 * @param styledText The text widget which contains the text.
+	 * @param buffer     The buffer of the new text, it must not be changed
+	 *                   afterwards.
+	 */
+	public void replace(final StyledText styledText, final TextBuffer buffer) {
+		final var content = (TextContent) styledText.getContent();
+		final var text = content.snapshot();
+		final var oldLength = text.length();
+		final var newLength = buffer.length();
+		final var limit = Math.min(oldLength, newLength);
+		var prefix = 0;
+		while (prefix < limit && text.charAt(prefix) == buffer.charAt(prefix)) {
+			prefix++;
+		}
+		var suffix = 0;
+		while (suffix < limit - prefix
+				&& text.charAt(oldLength - suffix - 1) == buffer.charAt(newLength - suffix - 1)) {
+			suffix++;
+		}
+		if (prefix > 0 && prefix < oldLength && text.charAt(prefix - 1) == '\r' && text.charAt(prefix) == '\n') {
+			prefix--;
+		}
+		final var end = oldLength - suffix;
+		if (end > prefix && end < oldLength && text.charAt(end - 1) == '\r' && text.charAt(end) == '\n') {
+			suffix--;
+		}
+		if (prefix + suffix == oldLength && prefix + suffix == newLength) {
+			return;
+		}
+		replace(styledText, prefix, oldLength - suffix - prefix, buffer, prefix, newLength - suffix - prefix);
+	}
+
+	/**
+	 * Replaces a range of the text with characters of the buffer as one entry.
+	 * <br>
+	 * The characters become a piece of the text, and the entry is read from
+	 * snapshots of the text, so neither is copied into one String.
+	 *
+	 * @param styledText The text widget which contains the text.
+	 * @param start      The offset of the range.
+	 * @param length     The number of replaced characters.
+	 * @param buffer     The buffer of the new characters, it must not be changed
+	 *                   afterwards.
+	 * @param from       The offset of the first new character in the buffer.
+	 * @param count      The number of new characters.
+	 */
+	public void replace(final StyledText styledText, final int start, final int length, final TextBuffer buffer,
+			final int from, final int count) {
+		final var content = (TextContent) styledText.getContent();
+		final var replacedText = content.snapshot().subSequence(start, start + length);
+		splice(styledText, start, length, buffer, from, count);
+		sealed = true;
+		add(start, replacedText, content.snapshot().subSequence(start, start + count));
+		sealed = true;
+	}
 
-	/** Instance of the caret position in the text. */
-	private final int caret;
+	/**
+	 * Makes room in the arena for more characters.
+	 *
+	 * @param length The number of characters to write.
+	 */
+	private void reserve(final int length) {
+		while (count > 0 && head - tail + length > MAX_ARENA) {
+			evict();
+		}
+		if (count == 0) {
+			head = 0;
+			tail = 0;
+		}
+		final var live = head - tail;
+		var size = ARENA_SIZE;
+		while (live + length > size) {
+			size <<= 1;
+		}
+		if (size > arena.length || size << 2 <= arena.length) {
+			final var resized = new char[size];
+			final var mask = arena.length - 1;
+			for (var p = tail; p < head; p++) {
+				resized[(int) (p & (size - 1))] = arena[(int) (p & mask)];
+			}
+			arena = resized;
+		}
+	}
 
-	/** Instance of the text for the undo action. */
-	private final String text;
+	/**
+	 * @return Return the memory in bytes of the retained entries.
+	 */
+	private long retained() {
+		return (head - tail) * 2 + (long) count * RECORD_BYTES;
+	}
 
 	/**
-	 * Creates a new instance of the class with the given parameters.
+	 * Replaces a range of the text with characters of the buffer, without the
+	 * events of the styled text for an edit, and notifies the modify listeners.
 	 *
-	 * @param text     The text for the undo action.
-	 * @param replaced The boolean value if the text was replaced.
-	 * @param caret    The int value for the caret position.
+	 * @param styledText The text widget which contains the text.
+	 * @param start      The offset of the range.
+	 * @param length     The number of replaced characters.
+	 * @param buffer     The buffer of the new characters.
+	 * @param from       The offset of the first new character in the buffer.
+	 * @param count      The number of new characters.
 	 */
-	public UndoUtil(final String text, final boolean replaced, final int caret) {
-		this.text = text;
-		this.replaced = replaced;
-		this.caret = caret;
+	private static void splice(final StyledText styledText, final int start, final int length,
+			final TextBuffer buffer, final int from, final int count) {
+		((TextContent) styledText.getContent()).replaceTextRange(start, length, buffer, from, count);
+		styledText.notifyListeners(SWT.Modify, new Event());
 	}
 
 	/**
-	 * @return Return caret.
+	 * Removes the entries which can be redone.
 	 */
-	public int getCaret() {
-		return caret;
+	private void truncate() {
+		for (var k = cursor; k < count; k++) {
+			if (spilled[index(k)]) {
+				spilledCount--;
+			}
+		}
+		count = cursor;
+		var arenaEnd = -1L;
+		var spillEnd = -1L;
+		for (var k = count - 1; k >= 0 && (arenaEnd < 0 || spillEnd < 0); k--) {
+			final var i = index(k);
+			final var end = positions[i] + removed[i] + inserted[i];
+			if (spilled[i] && spillEnd < 0) {
+				spillEnd = end;
+			} else if (!spilled[i] && arenaEnd < 0) {
+				arenaEnd = end;
+			}
+		}
+		head = arenaEnd < 0 ? tail : arenaEnd;
+		spillHead = Math.max(spillEnd, 0);
+		if (spilledCount == 0) {
+			spillTail = 0;
+		}
+		sealed = true;
 	}
 
 	/**
-	 * @return Return text.
+	 * Undo function of the styled text.
+	 *
+	 * @param styledText The text widget for the undo function.
 	 */
-	public String getText() {
-		return text;
+	public void undo(final StyledText styledText) {
+		if (cursor <= 0) {
+			return;
+		}
+		final var i = index(cursor - 1);
+		final TextBuffer buffer;
+		try {
+			buffer = spilled[i] ? readSpilled(i, 0, removed[i]) : null;
+		} catch (final IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		cursor--;
+		try {
+			if (buffer != null) {
+				splice(styledText, offsets[i], inserted[i], buffer, 0, removed[i]);
+			} else {
+				styledText.replaceTextRange(offsets[i], inserted[i], read(i, 0, removed[i], backward[i]));
+			}
+			styledText.setCaretOffset(offsets[i] + removed[i]);
+			styledText.showSelection();
+		} catch (final IllegalArgumentException e) {
+			e.printStackTrace();
+		}
+		sealed = true;
 	}
 
 	/**
-	 * @return Return replaced.
+	 * Writes the characters of a large entry to the temporary file.
+	 *
+	 * @param replacedText The removed text.
+	 * @param newText      The inserted text.
+	 * @return Return true if the characters were written.
 	 */
-	public boolean isReplaced() {
-		return replaced;
+	private boolean write(final CharSequence replacedText, final CharSequence newText) {
+		try {
+			if (spill == null) {
+				final var file = Files.createTempFile("swtextedit", ".undo"); //$NON-NLS-1$ //$NON-NLS-2$
+				file.toFile().deleteOnExit();
+				spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.DELETE_ON_CLOSE);
+				spillBuffer = ByteBuffer.allocateDirect(SPILL_BUFFER);
+			}
+			final var chars = new char[SPILL_BUFFER / 2];
+			var position = spillHead * 2;
+			for (final var s : new CharSequence[] { replacedText, newText }) {
+				for (var done = 0; done < s.length();) {
+					final var k = Math.min(chars.length, s.length() - done);
+					getChars(s, done, done + k, chars, 0);
+					spillBuffer.clear();
+					spillBuffer.asCharBuffer().put(chars, 0, k);
+					spillBuffer.limit(k * 2);
+					while (spillBuffer.hasRemaining()) {
+						position += spill.write(spillBuffer, position);
+					}
+					done += k;
+				}
+			}
+			return true;
+		} catch (final IOException e) {
+			e.printStackTrace();
+			return false;
+		}
 	}
 }
@@ -22,14 +22,18 @@
 package io.github.seerainer.swtextedit.widgets;
 
 import java.io.File;
+import java.nio.charset.Charset;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 
 import io.github.seerainer.swtextedit.config.ConfigData;
-import io.github.seerainer.swtextedit.io.IO;
+import io.github.seerainer.swtextedit.config.FileEncoding;
+import io.github.seerainer.swtextedit.io.BackgroundOpen;
+import io.github.seerainer.swtextedit.io.BackgroundSave;
 import io.github.seerainer.swtextedit.util.StringUtil;
 
 /**
@@ -55,61 +59,81 @@ public final class FileDialogWidget {
 	 * @param text  The text which will be shown.
 	 */
 	private static void errorMsg(final Shell shell, final String text) {
-		MessageBoxWidget.newMessageBox(shell, SWT.ICON_WARNING | SWT.OK, text, path).open();
+		errorMsg(shell, text, path);
 	}
 
 	/**
-	 * FileDialog for opening or saving a textfile.
+	 * Message box for Warnings.
+	 *
+	 * @param shell The parent of the message box.
+	 * @param text  The text which will be shown.
+	 * @param file  The path and name of the file.
+	 */
+	private static void errorMsg(final Shell shell, final String text, final String file) {
+		MessageBoxWidget.newMessageBox(shell, SWT.ICON_WARNING | SWT.OK, text, file).open();
+	}
+
+	/**
+	 * Creates a file dialog for text files.
 	 *
 	 * @param shell      The parent of the dialog.
 	 * @param configData The configuration values of the GUI.
 	 * @param style      The style which may be OPEN or SAVE.
-	 * @param text       The text widget for the text file.
-	 * @return Returns the path and filename.
+	 * @return Returns the file dialog.
 	 */
-	public static boolean fileDialog(final Shell shell, final ConfigData configData, final int style,
-			final StyledText text) {
+	private static FileDialog newFileDialog(final Shell shell, final ConfigData configData, final int style) {
 		final var fileDialog = new FileDialog(shell, style);
 		fileDialog.setFilterNames(new String[] { configData.getLangRes().getString("filedialog_filternames_all") }); //$NON-NLS-1$
 		fileDialog.setFilterExtensions(new String[] { "*.*" }); //$NON-NLS-1$
 		fileDialog.setOverwrite(true);
-		status = false;
+		return fileDialog;
+	}
 
-		if (style == SWT.OPEN) {
-			do {
-				path = fileDialog.open();
-				if (StringUtil.isValueEmpty(path)) {
-					return false;
-				}
-				file = new File(path);
-				if (file.getAbsoluteFile().exists()) {
-					status = IO.open(file, text);
-					if (status) {
-						configData.setFilename(path);
-					} else {
-						errorMsg(shell, configData.getLangRes().getString("filedialog_error_open")); //$NON-NLS-1$
+	/**
+	 * Opens the file on a worker thread, the text shows the beginning of the file
+	 * at once.<br>
+	 * If the open fails or is stopped the text is only a part of the file, so the
+	 * file isn't the open file anymore and can't be overwritten with the part. A
+	 * running save is finished first, so it can't rename the new text.
+	 *
+	 * @param shell      The parent of the message box.
+	 * @param configData The configuration values of the GUI.
+	 * @param text       The text widget for the text file.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param file       The path and name of the file.
+	 * @param charset    The character encoding of the file, or null to detect
+	 *                   it.
+	 * @param opened     Runs on the UI thread after the open, may be null.
+	 * @return Returns false if the file can't be opened.
+	 */
+	private static boolean load(final Shell shell, final ConfigData configData, final StyledText text,
+			final Label label, final String file, final Charset charset, final Runnable opened) {
+		BackgroundSave.await(shell);
+		return BackgroundOpen.open(new File(file), text, charset, label,
+				configData.getLangRes().getString("status_opening"), //$NON-NLS-1$
+				new BackgroundOpen.Listener() {
+
+					@Override
+					public void detected(final FileEncoding encoding) {
+						configData.setEncoding(encoding);
 					}
-				} else {
-					errorMsg(shell, configData.getLangRes().getString("filedialog_error_found")); //$NON-NLS-1$
-				}
-			} while (!status);
-		} else if (style == SWT.SAVE) {
-			do {
-				path = fileDialog.open();
-				if (StringUtil.isValueEmpty(path)) {
-					return false;
-				}
-				file = new File(path);
-				status = IO.save(file, text.getText());
-				if (status) {
-					configData.setFilename(path);
-				} else {
-					errorMsg(shell, configData.getLangRes().getString("filedialog_error_save")); //$NON-NLS-1$
-				}
-			} while (!status);
-		}
 
-		return true;
+					@Override
+					public void opened(final boolean complete, final boolean stopped) {
+						if (!complete) {
+							if (file.equals(configData.getFilename())) {
+								configData.setFilename(null);
+							}
+							if (!stopped && !shell.isDisposed()) {
+								errorMsg(shell, configData.getLangRes().getString("filedialog_error_open"), file); //$NON-NLS-1$
+							}
+						}
+						if (opened != null) {
+							opened.run();
+						}
+					}
+				});
 	}
 
 	/**
@@ -118,13 +142,34 @@ public final class FileDialogWidget {
 	 * @param text       The text widget for the text file.
 	 * @param shell      The parent of the message box.
 	 * @param configData The configuration values of the GUI.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param opened     Runs on the UI thread after the open, may be null.
 	 */
-	public static void open(final StyledText text, final Shell shell, final ConfigData configData) {
+	public static void open(final StyledText text, final Shell shell, final ConfigData configData, final Label label,
+			final Runnable opened) {
+		open(text, shell, configData, label, null, opened);
+	}
+
+	/**
+	 * For opening a text file with a given encoding, or for reloading it.
+	 *
+	 * @param text       The text widget for the text file.
+	 * @param shell      The parent of the message box.
+	 * @param configData The configuration values of the GUI.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param charset    The character encoding of the file, or null to detect
+	 *                   it.
+	 * @param opened     Runs on the UI thread after the open, may be null.
+	 */
+	public static void open(final StyledText text, final Shell shell, final ConfigData configData, final Label label,
+			final Charset charset, final Runnable opened) {
 		path = configData.getFilename();
 		if (!StringUtil.isValueEmpty(path)) {
 			file = new File(path);
 			if (file.getAbsoluteFile().exists()) {
-				status = IO.open(file, text);
+				status = load(shell, configData, text, label, path, charset, opened);
 				if (!status) {
 					errorMsg(shell, configData.getLangRes().getString("filedialog_error_open")); //$NON-NLS-1$
 				}
@@ -136,6 +181,117 @@ public final class FileDialogWidget {
 		configData.setHasChanged(false);
 	}
 
+	/**
+	 * FileDialog for opening a textfile on a worker thread.
+	 *
+	 * @param shell      The parent of the dialog.
+	 * @param configData The configuration values of the GUI.
+	 * @param text       The text widget for the text file.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param opened     Runs on the UI thread after the open, may be null.
+	 * @return Returns false if the dialog was canceled.
+	 */
+	public static boolean openDialog(final Shell shell, final ConfigData configData, final StyledText text,
+			final Label label, final Runnable opened) {
+		final var fileDialog = newFileDialog(shell, configData, SWT.OPEN);
+		status = false;
+
+		do {
+			path = fileDialog.open();
+			if (StringUtil.isValueEmpty(path)) {
+				return false;
+			}
+			file = new File(path);
+			if (file.getAbsoluteFile().exists()) {
+				status = load(shell, configData, text, label, path, null, opened);
+				if (status) {
+					configData.setFilename(path);
+				} else {
+					errorMsg(shell, configData.getLangRes().getString("filedialog_error_open")); //$NON-NLS-1$
+				}
+			} else {
+				errorMsg(shell, configData.getLangRes().getString("filedialog_error_found")); //$NON-NLS-1$
+			}
+		} while (!status);
+
+		return true;
+	}
+
+	/**
+	 * Saves the text into a file on a worker thread.<br>
+	 * On success the file becomes the open file and the text is unchanged, if it
+	 * was not edited while saving. A running open is finished first, so the whole
+	 * file is saved.
+	 *
+	 * @param shell      The parent of the message box.
+	 * @param configData The configuration values of the GUI.
+	 * @param text       The text widget for the text file.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param file       The path and name of the file.
+	 * @param saved      Runs on the UI thread after the save, or null to wait for
+	 *                   the save.
+	 * @return Returns the success of saving the file, or true if the save has
+	 *         started without waiting.
+	 */
+	public static boolean save(final Shell shell, final ConfigData configData, final StyledText text,
+			final Label label, final String file, final Runnable saved) {
+		BackgroundOpen.await(shell);
+		final var success = new boolean[1];
+		BackgroundSave.save(new File(file), text, configData.getEncoding(), label,
+				configData.getLangRes().getString("status_saving"), //$NON-NLS-1$
+				(result, current) -> {
+					success[0] = result;
+					if (result) {
+						configData.setFilename(file);
+						if (current) {
+							configData.setHasChanged(false);
+						}
+					}
+					if (saved != null) {
+						if (!result && !shell.isDisposed()) {
+							errorMsg(shell, configData.getLangRes().getString("filedialog_error_save"), file); //$NON-NLS-1$
+						}
+						saved.run();
+					}
+				});
+		if (saved != null) {
+			return true;
+		}
+		BackgroundSave.await(shell);
+		return success[0];
+	}
+
+	/**
+	 * FileDialog for saving a textfile on a worker thread.
+	 *
+	 * @param shell      The parent of the dialog.
+	 * @param configData The configuration values of the GUI.
+	 * @param text       The text widget for the text file.
+	 * @param label      The label of the status bar for the progress, may be
+	 *                   null.
+	 * @param saved      Runs on the UI thread after the save, or null to wait for
+	 *                   the save.
+	 * @return Returns false if the dialog was canceled.
+	 */
+	public static boolean saveDialog(final Shell shell, final ConfigData configData, final StyledText text,
+			final Label label, final Runnable saved) {
+		final var fileDialog = newFileDialog(shell, configData, SWT.SAVE);
+		do {
+			path = fileDialog.open();
+			if (StringUtil.isValueEmpty(path)) {
+				return false;
+			}
+			status = save(shell, configData, text, label, path, saved);
+			if (!status) {
+				errorMsg(shell, configData.getLangRes().getString("filedialog_error_save")); //$NON-NLS-1$
+			}
+		} while (!status);
+
+		return true;
+	}
+
 	/**
 	 * Message box of "Yes", "No" & "Cancel".
 	 *
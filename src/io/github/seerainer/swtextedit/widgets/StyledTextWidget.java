@@ -28,6 +28,8 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 
+import io.github.seerainer.swtextedit.text.TextContent;
+
 /**
  * Creates a new StyledText widget with the given parameters.
  *
@@ -55,6 +57,7 @@ public final class StyledTextWidget {
 			final GridData gridData, final boolean focus, final Font font, final Color back, final Color fore,
 			final Color selectBack, final Color selectFore, final boolean wrap) {
 		final var styledText = new StyledText(parent, style);
+		styledText.setContent(new TextContent());
 
 		if (menu != null) {
 			styledText.setMenu(menu);
@@ -0,0 +1,142 @@
+/*
+ * SWTextedit
+ * Copyright (C) 2006, 2024 Philipp Seerainer
+ * philipp@seerainer.com
+ * https://github.com/seerainer/SWTextedit
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package io.github.seerainer.swtextedit.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.seerainer.swtextedit.util.UndoUtil;
+
+/**
+ * Tests the text content without a display.<br>
+ * A keystroke is replayed like the undo listener of the text widget sees it:
+ * the character is inserted, the inserted text is read back with
+ * {@link TextContent#getTextRange(int, int)} and added to the undo history.
+ *
+ * @author philipp@seerainer.com
+ */
+class TextContentTest {
+
+	/** The number of measured keystrokes. */
+	private static final int KEYSTROKES = 5_000;
+
+	/** The size of a small text in characters. */
+	private static final int SMALL = 1 << 16;
+
+	/** The size of a large text in characters. */
+	private static final int LARGE = 1 << 25;
+
+	/**
+	 * Measures the memory which a keystroke allocates.
+	 *
+	 * @param size The size of the text in characters.
+	 * @return Return the allocated bytes per keystroke.
+	 */
+	private static long allocatedPerKeystroke(final int size) {
+		final var content = text(size);
+		final var undoUtil = new UndoUtil(1 << 26, 1 << 20, 1L << 30);
+		final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		try {
+			type(content, undoUtil, size / 2);
+			final var before = threads.getCurrentThreadAllocatedBytes();
+			type(content, undoUtil, size / 2 + KEYSTROKES);
+			return (threads.getCurrentThreadAllocatedBytes() - before) / KEYSTROKES;
+		} finally {
+			undoUtil.dispose();
+		}
+	}
+
+	/**
+	 * @param size The size of the text in characters.
+	 * @return Return a content with lines of 64 characters.
+	 */
+	private static TextContent text(final int size) {
+		final var line = "x".repeat(63) + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+		final var buffer = new TextBuffer();
+		for (var i = 0; i < size; i += line.length()) {
+			buffer.append(line);
+		}
+		final var content = new TextContent();
+		content.setText(buffer);
+		return content;
+	}
+
+	/**
+	 * Types characters one after another like the text widget.
+	 *
+	 * @param content  The content of the text.
+	 * @param undoUtil The undo history.
+	 * @param offset   The offset of the first character.
+	 */
+	private static void type(final TextContent content, final UndoUtil undoUtil, final int offset) {
+		for (var i = 0; i < KEYSTROKES; i++) {
+			content.replaceTextRange(offset + i, 0, "a"); //$NON-NLS-1$
+			undoUtil.add(offset + i, "", content.getTextRange(offset + i, 1)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * The memory of a keystroke doesn't grow with the size of the text.
+	 */
+	@Test
+	void keystrokeAllocationIsIndependentOfSize() {
+		allocatedPerKeystroke(SMALL);
+		final var small = allocatedPerKeystroke(SMALL);
+		final var large = allocatedPerKeystroke(LARGE);
+		assertTrue(large < small * 2 + 1024,
+				"small: " + small + " bytes, large: " + large + " bytes per keystroke"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTrue(large < LARGE / 1024, "large: " + large + " bytes per keystroke"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * A range of a buffer replaces a range of the text, the lines are counted
+	 * like in the String.
+	 */
+	@Test
+	void bufferRangeReplacesText() {
+		final var content = new TextContent();
+		content.setText("a\r\nb\nc"); //$NON-NLS-1$
+		final var buffer = new TextBuffer();
+		buffer.append("A\nB\r\nC"); //$NON-NLS-1$
+		content.replaceTextRange(3, 2, buffer, 2, 3);
+		assertEquals("a\r\nB\r\nc", content.getTextRange(0, content.getCharCount())); //$NON-NLS-1$
+		assertEquals(3, content.getLineCount());
+		assertEquals(6, content.getOffsetAtLine(2));
+	}
+
+	/**
+	 * The inserted text is read back from the middle of a large text.
+	 */
+	@Test
+	void textRangeReturnsInsertedText() {
+		final var content = text(SMALL);
+		final var offset = SMALL / 2 + 7;
+		content.replaceTextRange(offset, 0, "typed"); //$NON-NLS-1$
+		assertEquals("typed", content.getTextRange(offset, 5)); //$NON-NLS-1$
+		assertEquals("xtypedx", content.getTextRange(offset - 1, 7)); //$NON-NLS-1$
+		assertEquals(SMALL + 5, content.getCharCount());
+	}
+}